@@ -16,7 +16,6 @@ package com.amazonaws.services.cloudwatch;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
@@ -28,6 +27,7 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 
 import com.amazonaws.services.cloudwatch.model.*;
+import com.amazonaws.util.ExecutorServices;
 
 /**
  * Asynchronous client for accessing AmazonCloudWatch.
@@ -130,7 +130,7 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient
      */
     @Deprecated
     public AmazonCloudWatchAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, ExecutorServices.newFixedThreadPool(clientConfiguration.getMaxConnections()));
     }
 
     /**
@@ -148,7 +148,7 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient
      *                       when authenticating with AWS services.
      */
     public AmazonCloudWatchAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, ExecutorServices.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -215,7 +215,7 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient
      *            to authenticate requests with AWS services.
      */
     public AmazonCloudWatchAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, ExecutorServices.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -258,7 +258,7 @@ public class AmazonCloudWatchAsyncClient extends AmazonCloudWatchClient
      */
     public AmazonCloudWatchAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
                 ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, ExecutorServices.newFixedThreadPool(clientConfiguration.getMaxConnections()));
     }
 
     /**
@@ -17,6 +17,7 @@ package com.amazonaws.auth;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
+import com.amazonaws.internal.FIFOCache;
 import com.amazonaws.util.AwsHostNameUtils;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.DateUtils;
@@ -47,6 +48,16 @@ public class AWS4Signer extends AbstractAWSSigner
 
     /** Seconds in a week, which is the max expiration time Sig-v4 accepts */
     private final static long MAX_EXPIRATION_TIME_IN_SECONDS = 60 * 60 * 24 * 7;
+
+    /** Max number of derived signing keys kept in {@link #SIGNING_KEY_CACHE} */
+    private static final int SIGNING_KEY_CACHE_MAX_SIZE = 300;
+
+    /**
+     * Cache of derived signing keys, keyed on secret key, region and service,
+     * shared by all signer instances.
+     */
+    private static final FIFOCache<SigningKey> SIGNING_KEY_CACHE =
+            new FIFOCache<SigningKey>(SIGNING_KEY_CACHE_MAX_SIZE);
     /**
      * Service name override for use when the endpoint can't be used to
      * determine the service name.
@@ -289,18 +300,43 @@ public class AWS4Signer extends AbstractAWSSigner
         String stringToSign = getStringToSign(algorithm, timeStamp, scope,
                 getCanonicalRequest(request, contentSha256));
 
+        byte[] kSigning = newSigningKey(sanitizedCredentials, dateStamp,
+                regionName, serviceName);
+
+        byte[] signature = sign(stringToSign.getBytes(StringUtils.UTF8), kSigning,
+                SigningAlgorithm.HmacSHA256);
+        return new HeaderSigningResult(timeStamp, scope, kSigning, signature);
+    }
+
+    /**
+     * Returns the signing key for the given credentials, date, region and
+     * service. The key only changes once a day, so derived keys are cached per
+     * (secret key, region, service) and re-derived when the date stamp moves
+     * on.
+     */
+    private byte[] newSigningKey(AWSCredentials credentials, String dateStamp,
+            String regionName, String serviceName) {
+        final String cacheKey = credentials.getAWSSecretKey() + "-" + regionName + "-"
+                + serviceName;
+        SigningKey signingKey = SIGNING_KEY_CACHE.get(cacheKey);
+        if (signingKey != null && signingKey.isValidForDate(dateStamp)) {
+            return signingKey.getKey();
+        }
+
+        log.debug("No cached signing key found for date stamp "
+                + dateStamp);
+
         // AWS4 uses a series of derived keys, formed by hashing different
         // pieces of data
-        byte[] kSecret = ("AWS4" + sanitizedCredentials.getAWSSecretKey())
+        byte[] kSecret = ("AWS4" + credentials.getAWSSecretKey())
                 .getBytes(StringUtils.UTF8);
         byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         byte[] kService = sign(serviceName, kRegion, SigningAlgorithm.HmacSHA256);
         byte[] kSigning = sign(TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
 
-        byte[] signature = sign(stringToSign.getBytes(StringUtils.UTF8), kSigning,
-                SigningAlgorithm.HmacSHA256);
-        return new HeaderSigningResult(timeStamp, scope, kSigning, signature);
+        SIGNING_KEY_CACHE.add(cacheKey, new SigningKey(dateStamp, kSigning));
+        return kSigning;
     }
 
     protected final String getTimeStamp(long dateMilli) {
@@ -366,6 +402,28 @@ public class AWS4Signer extends AbstractAWSSigner
         return;
     }
 
+    /**
+     * A derived signing key along with the date stamp it is valid for.
+     */
+    private static final class SigningKey {
+
+        private final String dateStamp;
+        private final byte[] key;
+
+        SigningKey(String dateStamp, byte[] key) {
+            this.dateStamp = dateStamp;
+            this.key = key;
+        }
+
+        boolean isValidForDate(String dateStamp) {
+            return this.dateStamp.equals(dateStamp);
+        }
+
+        byte[] getKey() {
+            return key;
+        }
+    }
+
     protected static class HeaderSigningResult {
 
         private final String dateTime;
@@ -32,6 +32,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
@@ -50,6 +51,26 @@ import javax.crypto.spec.SecretKeySpec;
  */
 public abstract class AbstractAWSSigner implements Signer {
 
+    /** Size of the buffer used to read a payload stream while hashing it */
+    private static final int HASH_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Per-thread SHA-256 digest, reset before every use, so that hashing the
+     * canonical request and payload does not look up a provider per request.
+     */
+    private static final ThreadLocal<MessageDigest> SHA256_MESSAGE_DIGEST =
+            new ThreadLocal<MessageDigest>() {
+                @Override
+                protected MessageDigest initialValue() {
+                    try {
+                        return MessageDigest.getInstance("SHA-256");
+                    } catch (NoSuchAlgorithmException e) {
+                        throw new AmazonClientException(
+                                "Unable to get SHA256 Function: " + e.getMessage(), e);
+                    }
+                }
+            };
+
     /**
      * Computes an RFC 2104-compliant HMAC signature and returns the result as a
      * Base64 encoded string.
@@ -89,7 +110,7 @@ public abstract class AbstractAWSSigner implements Signer {
     protected byte[] sign(byte[] data, byte[] key, SigningAlgorithm algorithm)
             throws AmazonClientException {
         try {
-            Mac mac = Mac.getInstance(algorithm.toString());
+            Mac mac = algorithm.getMac();
             mac.init(new SecretKeySpec(key, algorithm.toString()));
             return mac.doFinal(data);
         } catch (Exception e) {
@@ -108,7 +129,7 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     public byte[] hash(String text) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             md.update(text.getBytes(UTF8));
             return md.digest();
         } catch (Exception e) {
@@ -117,12 +138,20 @@ public abstract class AbstractAWSSigner implements Signer {
         }
     }
 
+    /**
+     * Hashes the contents of the stream using the SHA-256 algorithm, reading
+     * it in a single pass without buffering the whole payload.
+     *
+     * @param input The stream to hash; it is read to the end.
+     * @return The hashed bytes of the stream contents.
+     * @throws AmazonClientException If the hash cannot be computed.
+     */
     protected byte[] hash(InputStream input) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             @SuppressWarnings("resource")
             DigestInputStream digestInputStream = new SdkDigestInputStream(input, md);
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
             while (digestInputStream.read(buffer) > -1)
                 ;
             return digestInputStream.getMessageDigest().digest();
@@ -141,7 +170,7 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     public byte[] hash(byte[] data) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             md.update(data);
             return md.digest();
         } catch (Exception e) {
@@ -150,6 +179,39 @@ public abstract class AbstractAWSSigner implements Signer {
         }
     }
 
+    /**
+     * Hashes a range of the binary data using the SHA-256 algorithm, without
+     * copying it.
+     *
+     * @param data The binary data to hash.
+     * @param offset The offset of the first byte to hash.
+     * @param length The number of bytes to hash.
+     * @return The hashed bytes from the specified range.
+     * @throws AmazonClientException If the hash cannot be computed.
+     */
+    protected byte[] hash(byte[] data, int offset, int length) throws AmazonClientException {
+        try {
+            MessageDigest md = getMessageDigestInstance();
+            md.update(data, offset, length);
+            return md.digest();
+        } catch (Exception e) {
+            throw new AmazonClientException("Unable to compute hash while signing request: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the re-usable thread local version of MessageDigest, reset and
+     * ready for use.
+     *
+     * @return the SHA-256 {@link MessageDigest} for the current thread
+     */
+    private static MessageDigest getMessageDigestInstance() {
+        MessageDigest messageDigest = SHA256_MESSAGE_DIGEST.get();
+        messageDigest.reset();
+        return messageDigest;
+    }
+
     /**
      * Examines the specified query string parameters and returns a
      * canonicalized form.
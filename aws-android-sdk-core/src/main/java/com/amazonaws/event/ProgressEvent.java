@@ -38,6 +38,7 @@ public class ProgressEvent {
     public static final int PART_STARTED_EVENT_CODE = 1024;
     public static final int PART_COMPLETED_EVENT_CODE = 2048;
     public static final int PART_FAILED_EVENT_CODE = 4096;
+    public static final int PART_TUNING_EVENT_CODE = 8192;
 
     /** The number of bytes transferred since the last progress event. */
     protected long bytesTransferred;
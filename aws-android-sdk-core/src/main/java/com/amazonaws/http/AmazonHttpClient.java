@@ -54,6 +54,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AmazonHttpClient {
 
@@ -91,6 +92,15 @@ public class AmazonHttpClient {
 
     private final HttpRequestFactory requestFactory = new HttpRequestFactory();
 
+    /**
+     * Number of http requests of this client currently being executed, which
+     * is reported as {@link Field#HttpClientPoolLeasedCount}. A request stops
+     * being counted once its response has been handled, so responses left
+     * open for the caller to stream (such as S3 object contents) are not
+     * counted.
+     */
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
     /**
      * Constructs a new AWS client using the specified client configuration
      * options (ex: max retry attempts, proxy settings, etc).
@@ -312,6 +322,7 @@ public class AmazonHttpClient {
                 request.setResourcePath(redirectedURI.getPath());
             }
 
+            boolean requestInFlight = false;
             try {
                 if (requestCount > 1) { // retry
                     awsRequestMetrics.startEvent(Field.RetryPauseTime);
@@ -351,6 +362,9 @@ public class AmazonHttpClient {
                         executionContext);
 
                 retriedException = null;
+                requestInFlight = true;
+                awsRequestMetrics.setCounter(Field.HttpClientPoolLeasedCount,
+                        inFlightRequests.incrementAndGet());
                 awsRequestMetrics.startEvent(Field.HttpRequestTime);
                 try {
                     httpResponse = httpClient.execute(httpRequest);
@@ -438,6 +452,9 @@ public class AmazonHttpClient {
             } catch (Error e) {
                 throw handleUnexpectedFailure(e, awsRequestMetrics);
             } finally {
+                if (requestInFlight) {
+                    inFlightRequests.decrementAndGet();
+                }
                 /*
                  * Some response handlers need to manually manage the HTTP
                  * connection and will take care of releasing the connection on
@@ -58,6 +58,22 @@ public class StaxResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
         }
     }
 
+    /**
+     * Per-thread XML pull parser. Setting a new input resets the parser, so
+     * one instance can parse every response handled on a thread instead of
+     * allocating a new parser and its buffers per response.
+     */
+    private static final ThreadLocal<XmlPullParser> xmlPullParser = new ThreadLocal<XmlPullParser>() {
+        @Override
+        protected XmlPullParser initialValue() {
+            try {
+                return xmlPullParserFactory.newPullParser();
+            } catch (XmlPullParserException xppe) {
+                throw new AmazonClientException("Couldn't create XmlPullParser", xppe);
+            }
+        }
+    };
+
     /**
      * Constructs a new response handler that will use the specified StAX
      * unmarshaller to unmarshall the service response and uses the specified
@@ -90,7 +106,7 @@ public class StaxResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
         if (content == null)
             content = new ByteArrayInputStream("<eof/>".getBytes(StringUtils.UTF8));
 
-        XmlPullParser xpp = xmlPullParserFactory.newPullParser();
+        XmlPullParser xpp = xmlPullParser.get();
         xpp.setInput(content, null);
 
         AmazonWebServiceResponse<T> awsResponse = new AmazonWebServiceResponse<T>();
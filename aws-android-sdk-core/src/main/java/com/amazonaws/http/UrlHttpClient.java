@@ -49,6 +49,19 @@ import javax.net.ssl.X509TrustManager;
  */
 public class UrlHttpClient implements HttpClient {
 
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 8;
+
+    /**
+     * Per-thread buffer used to copy request bodies to the connection, so
+     * that sending a request doesn't allocate a new buffer every time.
+     */
+    private static final ThreadLocal<byte[]> WRITE_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[DEFAULT_BUFFER_SIZE];
+        }
+    };
+
     private final ClientConfiguration config;
 
     public UrlHttpClient(ClientConfiguration config) {
@@ -166,7 +179,7 @@ public class UrlHttpClient implements HttpClient {
     }
 
     private void write(InputStream is, OutputStream os) throws IOException {
-        byte[] buf = new byte[1024 * 8];
+        byte[] buf = WRITE_BUFFER.get();
         int len;
         while ((len = is.read(buf)) != -1) {
             os.write(buf, 0, len);
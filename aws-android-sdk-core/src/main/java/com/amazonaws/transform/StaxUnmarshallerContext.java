@@ -19,10 +19,10 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -39,7 +39,7 @@ public class StaxUnmarshallerContext {
     private int currentEventType;
     private final XmlPullParser xpp;
 
-    public final Deque<String> stack = new LinkedList<String>();
+    public final Deque<String> stack = new ArrayDeque<String>();
     private String stackString = "";
 
     private Map<String, String> metadata = new HashMap<String, String>();
@@ -146,15 +146,22 @@ public class StaxUnmarshallerContext {
             return true;
 
         int index = -1;
-        while ((index = expression.indexOf("/", index + 1)) > -1) {
+        while ((index = expression.indexOf('/', index + 1)) > -1) {
             // Don't consider attributes a new depth level
             if (expression.charAt(index + 1) != '@') {
                 startingStackDepth++;
             }
         }
 
-        return (getCurrentDepth() == startingStackDepth
-        && stackString.endsWith("/" + expression));
+        if (getCurrentDepth() != startingStackDepth)
+            return false;
+
+        // Same as stackString.endsWith("/" + expression), without building
+        // a new string for every test
+        int expressionStart = stackString.length() - expression.length();
+        return expressionStart > 0
+                && stackString.charAt(expressionStart - 1) == '/'
+                && stackString.startsWith(expression, expressionStart);
     }
 
     /**
@@ -189,7 +196,8 @@ public class StaxUnmarshallerContext {
 
         // look for meta data
         if (currentEventType == XmlPullParser.START_TAG) {
-            for (MetadataExpression metadataExpression : metadataExpressions) {
+            for (int i = 0; i < metadataExpressions.size(); i++) {
+                MetadataExpression metadataExpression = metadataExpressions.get(i);
                 if (testExpression(metadataExpression.expression,
                         metadataExpression.targetDepth)) {
                     metadata.put(metadataExpression.key, readText());
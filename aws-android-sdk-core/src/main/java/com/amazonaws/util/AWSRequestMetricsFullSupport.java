@@ -44,8 +44,22 @@ public class AWSRequestMetricsFullSupport extends AWSRequestMetrics {
     /* Stores some key value pairs. */
     private final Map<String, List<Object>> properties = new HashMap<String, List<Object>>();
 
-    /* A map to store events that are being profiled. */
-    private final Map<String, TimingInfo> eventsBeingProfiled = new HashMap<String, TimingInfo>();
+    /*
+     * Start times of the predefined events that are being profiled, indexed by
+     * the ordinal of the field. Avoids allocating a TimingInfo and hashing the
+     * name for each of the events recorded on every request.
+     */
+    private final long[] fieldStartTimeNano = new long[FIELDS.length];
+    private final boolean[] fieldStarted = new boolean[FIELDS.length];
+    /* A map to store other events that are being profiled; created lazily. */
+    private Map<String, TimingInfo> eventsBeingProfiled;
+    private static final Field[] FIELDS = Field.values();
+    private static final Map<String, Field> FIELDS_BY_NAME = new HashMap<String, Field>();
+    static {
+        for (Field f : FIELDS) {
+            FIELDS_BY_NAME.put(f.name(), f);
+        }
+    }
     /* Latency Logger */
     private static final Log latencyLogger = LogFactory.getLog("com.amazonaws.latency");
     private static final Object KEY_VALUE_SEPARATOR = "=";
@@ -78,6 +92,14 @@ public class AWSRequestMetricsFullSupport extends AWSRequestMetrics {
      */
     @Override
     public void startEvent(String eventName) {
+        Field f = FIELDS_BY_NAME.get(eventName);
+        if (f != null) {
+            startEvent(f);
+            return;
+        }
+        if (eventsBeingProfiled == null) {
+            eventsBeingProfiled = new HashMap<String, TimingInfo>();
+        }
         /* This will overwrite past events */
         eventsBeingProfiled.put // ignoring the wall clock time
                 (eventName, TimingInfo.startTimingFullSupport(System.nanoTime()));
@@ -85,7 +107,14 @@ public class AWSRequestMetricsFullSupport extends AWSRequestMetrics {
 
     @Override
     public void startEvent(MetricType f) {
-        startEvent(f.name());
+        if (f instanceof Field) {
+            /* This will overwrite past events */
+            int i = ((Field) f).ordinal();
+            fieldStartTimeNano[i] = System.nanoTime();
+            fieldStarted[i] = true;
+        } else {
+            startEvent(f.name());
+        }
     }
 
     /**
@@ -97,7 +126,13 @@ public class AWSRequestMetricsFullSupport extends AWSRequestMetrics {
      */
     @Override
     public void endEvent(String eventName) {
-        TimingInfo event = eventsBeingProfiled.get(eventName);
+        Field f = FIELDS_BY_NAME.get(eventName);
+        if (f != null) {
+            endEvent(f);
+            return;
+        }
+        TimingInfo event = eventsBeingProfiled == null ? null
+                : eventsBeingProfiled.get(eventName);
         /* Somebody tried to end an event that was not started. */
         if (event == null) {
             LogFactory.getLog(getClass()).warn
@@ -114,7 +149,22 @@ public class AWSRequestMetricsFullSupport extends AWSRequestMetrics {
 
     @Override
     public void endEvent(MetricType f) {
-        endEvent(f.name());
+        if (!(f instanceof Field)) {
+            endEvent(f.name());
+            return;
+        }
+        int i = ((Field) f).ordinal();
+        /* Somebody tried to end an event that was not started. */
+        if (!fieldStarted[i]) {
+            LogFactory.getLog(getClass()).warn
+                    ("Trying to end an event which was never started: " + f.name());
+            return;
+        }
+        this.timingInfo.addSubMeasurement(
+                f.name(),
+                TimingInfo.unmodifiableTimingInfo(
+                        fieldStartTimeNano[i],
+                        System.nanoTime()));
     }
 
     /**
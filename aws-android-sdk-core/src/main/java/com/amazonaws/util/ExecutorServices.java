@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility for creating the executor services used by the SDK.
+ */
+public enum ExecutorServices {
+    ;
+    /**
+     * How long an idle thread of a pool created here is kept alive.
+     */
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Returns a thread pool which runs at most {@code poolSize} tasks at a
+     * time, like {@link java.util.concurrent.Executors#newFixedThreadPool(int)}
+     * does, but lets its threads terminate after a minute of idleness, so
+     * that an idle async client doesn't keep {@code poolSize} threads parked.
+     * The async clients use it when no executor service is given.
+     */
+    public static ExecutorService newFixedThreadPool(int poolSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2013-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import com.amazonaws.AmazonClientException;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches the pages of a paginated result in the background, up to a given
+ * number of pages ahead of the caller. Each page is requested with the
+ * previous one, so pages are fetched one after another by a single task; the
+ * caller processes one page while the next ones are on their way.
+ * <p>
+ * The task stops once the last page is fetched, when the prefetcher is
+ * closed, or when its owner (the iterator reading the pages) is no longer
+ * reachable, so an iteration abandoned half way doesn't keep fetching pages.
+ * An owner should still close the prefetcher when it is abandoned, since
+ * until it is garbage collected the task keeps a thread and a page.
+ *
+ * @param <P> the type of a page
+ */
+public final class PagePrefetcher<P> implements Closeable {
+
+    /**
+     * Fetches the pages of a paginated result. The methods are called one at
+     * a time by the task. Implementations must not hold on to the owner of
+     * the prefetcher.
+     */
+    public interface Pager<P> {
+        /** Returns the first page. */
+        P first();
+
+        /** Returns the page after the given one. */
+        P next(P previous);
+
+        /** Returns true if there are pages after the given one. */
+        boolean hasNext(P page);
+    }
+
+    /** How long the task waits for room in the queue before checking on its owner. */
+    private static final long OFFER_TIMEOUT_MILLIS = 1000;
+
+    private static final ThreadFactory daemonThreadFactory = new ThreadFactory() {
+        final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("PagePrefetcher-" + threadCount.incrementAndGet());
+            return thread;
+        }
+    };
+
+    private final Producer<P> producer;
+    private final Future<?> future;
+    private boolean closed;
+    private boolean done;
+
+    /**
+     * Starts fetching pages.
+     *
+     * @param pager fetches the pages
+     * @param pages the largest number of pages fetched ahead of the caller
+     * @param executor the executor to run the task in, or null to run it in a
+     *            thread of its own
+     * @param owner the object reading the pages; fetching stops once it is
+     *            garbage collected
+     */
+    public PagePrefetcher(Pager<P> pager, int pages, ExecutorService executor, Object owner) {
+        producer = new Producer<P>(pager, new ArrayBlockingQueue<Object>(pages), owner);
+        if (executor != null) {
+            future = executor.submit(producer);
+        } else {
+            ExecutorService thread = Executors.newSingleThreadExecutor(daemonThreadFactory);
+            future = thread.submit(producer);
+            // the thread ends once the task does
+            thread.shutdown();
+        }
+    }
+
+    /**
+     * Returns the next page, waiting for it if it hasn't been fetched yet.
+     *
+     * @return the next page, or null after the last one
+     * @throws AmazonClientException if fetching the page failed
+     * @throws IllegalStateException if the prefetcher has been closed
+     */
+    @SuppressWarnings("unchecked")
+    public P take() {
+        if (closed) {
+            throw new IllegalStateException("The prefetcher has been closed");
+        }
+        if (done) {
+            return null;
+        }
+        Object page;
+        try {
+            page = producer.queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for the next page", e);
+        }
+        if (page instanceof LastPage) {
+            done = true;
+            return (P) ((LastPage) page).page;
+        }
+        if (page instanceof Failure) {
+            close();
+            Throwable cause = ((Failure) page).cause;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException("Unable to fetch the next page: "
+                    + cause.getMessage(), cause);
+        }
+        return (P) page;
+    }
+
+    /**
+     * Stops fetching further pages. A request already sent isn't aborted, but
+     * its page is dropped along with the pages already fetched.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            producer.cancelled = true;
+            future.cancel(true);
+            producer.queue.clear();
+        }
+    }
+
+    /**
+     * The last page, after which the task has ended.
+     */
+    private static final class LastPage {
+        private final Object page;
+
+        private LastPage(Object page) {
+            this.page = page;
+        }
+    }
+
+    /**
+     * A page that couldn't be fetched.
+     */
+    private static final class Failure {
+        private final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Fetches the pages into the queue. It only refers to its owner weakly.
+     */
+    private static final class Producer<P> implements Runnable {
+        private final Pager<P> pager;
+        private final BlockingQueue<Object> queue;
+        private final WeakReference<Object> owner;
+        private volatile boolean cancelled;
+
+        private Producer(Pager<P> pager, BlockingQueue<Object> queue, Object owner) {
+            this.pager = pager;
+            this.queue = queue;
+            this.owner = new WeakReference<Object>(owner);
+        }
+
+        @Override
+        public void run() {
+            try {
+                P page = pager.first();
+                while (pager.hasNext(page)) {
+                    if (!offer(page)) {
+                        return;
+                    }
+                    page = pager.next(page);
+                }
+                offer(new LastPage(page));
+            } catch (InterruptedException e) {
+                // closed
+            } catch (Throwable t) {
+                try {
+                    offer(new Failure(t));
+                } catch (InterruptedException e) {
+                    // closed
+                }
+            }
+        }
+
+        /**
+         * Waits for room in the queue, and returns false if fetching should
+         * stop instead.
+         */
+        private boolean offer(Object page) throws InterruptedException {
+            while (!cancelled && owner.get() != null) {
+                if (queue.offer(page, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -17,16 +17,24 @@ package com.amazonaws.util;
 
 import com.amazonaws.ResponseMetadata;
 
+import java.lang.ref.WeakReference;
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Cache of response metadata for recently executed requests for diagnostic
  * purposes. This cache has a max size and as entries are added, the oldest
  * entry is aged out once the max size has been reached.
+ * <p>
+ * Entries are keyed on the identity of the given object, which is only weakly
+ * referenced so that the cache doesn't keep requests alive. This class is
+ * thread safe; lookups don't block each other.
  */
 public class ResponseMetadataCache {
     private final InternalCache internalCache;
+    private final ReentrantReadWriteLock.ReadLock readLock;
+    private final ReentrantReadWriteLock.WriteLock writeLock;
 
     /**
      * Creates a new cache that will contain, at most the specified number of
@@ -36,6 +44,9 @@ public class ResponseMetadataCache {
      */
     public ResponseMetadataCache(int maxEntries) {
         internalCache = new InternalCache(maxEntries);
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        readLock = lock.readLock();
+        writeLock = lock.writeLock();
     }
 
     /**
@@ -45,10 +56,16 @@ public class ResponseMetadataCache {
      * @param obj The key by which to store the metadata.
      * @param metadata The metadata for this entry.
      */
-    public synchronized void add(Object obj, ResponseMetadata metadata) {
+    public void add(Object obj, ResponseMetadata metadata) {
         if (obj == null)
             return;
-        internalCache.put(System.identityHashCode(obj), metadata);
+        IdentityKey key = new IdentityKey(obj);
+        writeLock.lock();
+        try {
+            internalCache.put(key, metadata);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -60,20 +77,56 @@ public class ResponseMetadataCache {
      *         otherwise null if no metadata is associated with that object.
      */
     public ResponseMetadata get(Object obj) {
-        // System.identityHashCode isn't guaranteed to be unique
-        // on all platforms, but should be reasonable enough to use
-        // for a few requests at a time. We can always easily move
-        // to our own unique IDs if needed.
-        return internalCache.get(System.identityHashCode(obj));
+        if (obj == null)
+            return null;
+        IdentityKey key = new IdentityKey(obj);
+        readLock.lock();
+        try {
+            return internalCache.get(key);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Key that compares the referenced objects by identity and only holds a
+     * weak reference to them. A key whose object has been garbage collected
+     * is only equal to itself, and ages out of the cache like any other entry.
+     */
+    private static final class IdentityKey {
+        private final WeakReference<Object> reference;
+        private final int hashCode;
+
+        IdentityKey(Object obj) {
+            reference = new WeakReference<Object>(obj);
+            hashCode = System.identityHashCode(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof IdentityKey))
+                return false;
+            Object referent = reference.get();
+            return referent != null && referent == ((IdentityKey) other).reference.get();
+        }
     }
 
     /**
      * Simple implementation of LinkedHashMap that overrides the
      * <code>removeEldestEntry</code> method to turn LinkedHashMap into a
-     * LRU(ish) cache that automatically evicts old entries.
+     * FIFO cache that automatically evicts old entries. Insertion order is
+     * used so that lookups don't modify the map.
      */
-    private static final class InternalCache extends LinkedHashMap<Integer, ResponseMetadata> {
-        private int maxSize;
+    private static final class InternalCache extends LinkedHashMap<IdentityKey, ResponseMetadata> {
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
 
         public InternalCache(int maxSize) {
             super(maxSize);
@@ -81,7 +134,7 @@ public class ResponseMetadataCache {
         }
 
         @Override
-        protected boolean removeEldestEntry(Entry eldest) {
+        protected boolean removeEldestEntry(Entry<IdentityKey, ResponseMetadata> eldest) {
             return size() > maxSize;
         }
     }
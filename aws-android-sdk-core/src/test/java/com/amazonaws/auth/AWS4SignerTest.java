@@ -80,6 +80,41 @@ public class AWS4SignerTest {
                 request.getHeaders().get("Authorization"));
     }
 
+    @Test
+    public void testSigningKeyIsRederivedForNewDate() throws Exception {
+        final String EXPECTED_AUTHORIZATION_HEADER_NEXT_DAY =
+                "AWS4-HMAC-SHA256 Credential=access/19810217/us-east-1/demo/aws4_request, SignedHeaders=host;x-amz-archive-description;x-amz-date, Signature=";
+
+        AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        Calendar c = new GregorianCalendar();
+        c.set(1981, 1, 16, 6, 30, 0);
+        c.setTimeZone(TimeZone.getTimeZone("UTC"));
+        signer.overrideDate(c.getTime());
+
+        Request<?> request = generateBasicRequest();
+        signer.sign(request, credentials);
+        String firstDay = request.getHeaders().get("Authorization");
+
+        // Signing the same request again is served from the cached key
+        request = generateBasicRequest();
+        signer.sign(request, credentials);
+        assertEquals(firstDay, request.getHeaders().get("Authorization"));
+
+        c.set(1981, 1, 17, 6, 30, 0);
+        signer.overrideDate(c.getTime());
+        request = generateBasicRequest();
+        signer.sign(request, credentials);
+        String nextDay = request.getHeaders().get("Authorization");
+        assertTrue(nextDay.startsWith(EXPECTED_AUTHORIZATION_HEADER_NEXT_DAY));
+        assertFalse(firstDay.substring(firstDay.indexOf("Signature="))
+                .equals(nextDay.substring(nextDay.indexOf("Signature="))));
+
+        // A different secret key must not reuse the cached signing key
+        request = generateBasicRequest();
+        signer.sign(request, new BasicAWSCredentials("access", "other-secret"));
+        assertFalse(nextDay.equals(request.getHeaders().get("Authorization")));
+    }
+
     @Test
     public void testCorrectHeadersAreSigned() {
         // Make sure neccesary headers are signed
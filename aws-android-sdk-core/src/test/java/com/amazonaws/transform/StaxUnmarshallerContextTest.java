@@ -103,6 +103,7 @@ public class StaxUnmarshallerContextTest {
         assertTrue(context.testExpression("imageSet/item/id", 2));
         assertFalse("depth not match", context.testExpression("imageSet/item/id", 3));
         assertFalse("expression not match", context.testExpression("imageSet/item_id", 2));
+        assertFalse("partial element name not match", context.testExpression("tem/id", 3));
     }
 
     @Test
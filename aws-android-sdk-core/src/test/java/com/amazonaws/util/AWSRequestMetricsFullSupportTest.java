@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+import org.junit.Test;
+
+public class AWSRequestMetricsFullSupportTest {
+
+    @Test
+    public void testPredefinedEvents() {
+        AWSRequestMetricsFullSupport metrics = new AWSRequestMetricsFullSupport();
+        TimingInfo ti = metrics.getTimingInfo();
+
+        metrics.startEvent(Field.HttpRequestTime);
+        metrics.endEvent(Field.HttpRequestTime);
+        // events can be started and ended by name
+        metrics.startEvent(Field.HttpRequestTime.name());
+        metrics.endEvent(Field.HttpRequestTime);
+        metrics.startEvent(Field.ResponseProcessingTime);
+        metrics.endEvent(Field.ResponseProcessingTime.name());
+
+        assertEquals(2, ti.getAllSubMeasurements(Field.HttpRequestTime.name()).size());
+        assertEquals(1, ti.getAllSubMeasurements(Field.ResponseProcessingTime.name()).size());
+        TimingInfo event = ti.getLastSubMeasurement(Field.HttpRequestTime.name());
+        assertTrue(event.isEndTimeKnown());
+        assertTrue(event.getEndTimeNano() >= event.getStartTimeNano());
+    }
+
+    @Test
+    public void testCustomEvents() {
+        AWSRequestMetricsFullSupport metrics = new AWSRequestMetricsFullSupport();
+        metrics.startEvent("custom");
+        metrics.endEvent("custom");
+        assertEquals(1, metrics.getTimingInfo().getAllSubMeasurements("custom").size());
+    }
+
+    @Test
+    public void testEndEventNeverStarted() {
+        AWSRequestMetricsFullSupport metrics = new AWSRequestMetricsFullSupport();
+        metrics.endEvent(Field.ClientExecuteTime);
+        metrics.endEvent("custom");
+        assertNull(metrics.getTimingInfo().getAllSubMeasurements(Field.ClientExecuteTime.name()));
+        assertNull(metrics.getTimingInfo().getAllSubMeasurements("custom"));
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class ExecutorServicesTest {
+
+    @Test
+    public void fixedThreadPoolLetsIdleThreadsTimeOut() {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ExecutorServices.newFixedThreadPool(4);
+        try {
+            assertEquals(4, executor.getCorePoolSize());
+            assertEquals(4, executor.getMaximumPoolSize());
+            assertTrue(executor.allowsCoreThreadTimeOut());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PagePrefetcherTest {
+
+    private static final int PAGES = 5;
+
+    @Test
+    public void testPagesInOrder() {
+        PagePrefetcher<Integer> prefetcher = new PagePrefetcher<Integer>(new CountingPager(),
+                2, null, this);
+        for (int i = 0; i < PAGES; i++) {
+            assertEquals(Integer.valueOf(i), prefetcher.take());
+        }
+        assertNull(prefetcher.take());
+        assertNull(prefetcher.take());
+    }
+
+    @Test
+    public void testPrefetchIsBounded() throws Exception {
+        CountingPager pager = new CountingPager();
+        PagePrefetcher<Integer> prefetcher = new PagePrefetcher<Integer>(pager, 1, null, this);
+        // one queued page, and one waiting for room
+        assertSettlesAt(2, pager.fetched);
+        prefetcher.close();
+    }
+
+    @Test
+    public void testCloseStopsFetching() throws Exception {
+        CountingPager pager = new CountingPager();
+        PagePrefetcher<Integer> prefetcher = new PagePrefetcher<Integer>(pager, 1, null, this);
+        assertEquals(Integer.valueOf(0), prefetcher.take());
+        prefetcher.close();
+        Thread.sleep(200);
+        int fetched = pager.fetched.get();
+        Thread.sleep(200);
+        assertEquals(fetched, pager.fetched.get());
+        assertTrue(fetched < PAGES);
+        try {
+            prefetcher.take();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testFailureIsThrownToTheCaller() {
+        CountingPager pager = new CountingPager();
+        pager.failure = new AmazonClientException("failed");
+        PagePrefetcher<Integer> prefetcher = new PagePrefetcher<Integer>(pager, 2, null, this);
+        assertEquals(Integer.valueOf(0), prefetcher.take());
+        try {
+            prefetcher.take();
+            fail("Expected AmazonClientException");
+        } catch (AmazonClientException expected) {
+            assertSame(pager.failure, expected);
+        }
+    }
+
+    /**
+     * Waits up to a couple of seconds for the count to reach the expected
+     * value, then a little longer to check that it goes no further.
+     */
+    private static void assertSettlesAt(int expected, AtomicInteger count)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (count.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(expected, count.get());
+    }
+
+    /**
+     * Serves the pages 0 to PAGES - 1, failing after the first one if a
+     * failure is set.
+     */
+    private static class CountingPager implements PagePrefetcher.Pager<Integer> {
+        private final AtomicInteger fetched = new AtomicInteger();
+        private volatile AmazonClientException failure;
+
+        @Override
+        public Integer first() {
+            fetched.incrementAndGet();
+            return 0;
+        }
+
+        @Override
+        public Integer next(Integer previous) {
+            if (failure != null) {
+                throw failure;
+            }
+            fetched.incrementAndGet();
+            return previous + 1;
+        }
+
+        @Override
+        public boolean hasNext(Integer page) {
+            return page < PAGES - 1;
+        }
+    }
+}
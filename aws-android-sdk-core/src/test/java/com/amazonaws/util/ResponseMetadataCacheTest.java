@@ -61,6 +61,25 @@ public class ResponseMetadataCacheTest {
         assertEquals(metadata4, cache.get(key4));
     }
 
+    /** Tests that entries are keyed on identity rather than equality. */
+    @Test
+    public void testKeyedOnIdentity() {
+        ResponseMetadataCache cache = new ResponseMetadataCache(3);
+
+        String key1 = new String("request");
+        String key2 = new String("request");
+        ResponseMetadata metadata1 = newResponseMetadata();
+        ResponseMetadata metadata2 = newResponseMetadata();
+
+        cache.add(key1, metadata1);
+        assertNull(cache.get(key2));
+
+        cache.add(key2, metadata2);
+        assertEquals(metadata1, cache.get(key1));
+        assertEquals(metadata2, cache.get(key2));
+        assertNull(cache.get(null));
+    }
+
     private class TestRequest extends AmazonWebServiceRequest {
     }
 
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a stream of keys with BatchGetItem, keeping up to a given number of
+ * requests in flight with a {@link BatchPipeline}.
+ * <p>
+ * Keys left unprocessed by DynamoDB are requested again after a jittered
+ * exponential backoff, ahead of the rest of the stream and in requests of
+ * their own. Each page of items is handed to the {@link PageHandler} on the
+ * thread that received it.
+ */
+class BatchLoadTask {
+
+    /**
+     * Receives the items of each response. Called from several threads at
+     * once when more than one request may be in flight.
+     */
+    interface PageHandler {
+        void onPage(String tableName, List<Map<String, AttributeValue>> items);
+    }
+
+    private final AmazonDynamoDB db;
+    private final int maxBatchesInFlight;
+    private final boolean consistentReads;
+    private final RequestMetricCollector requestMetricCollector;
+
+    /**
+     * @param db the client to load with
+     * @param maxBatchesInFlight the largest number of BatchGetItem requests to
+     *            make at once; with 1 the requests are made on the calling
+     *            thread
+     * @param consistentReads whether to make consistent reads
+     * @param requestMetricCollector the collector of the requests, or null
+     */
+    BatchLoadTask(AmazonDynamoDB db, int maxBatchesInFlight, boolean consistentReads,
+            RequestMetricCollector requestMetricCollector) {
+        if (maxBatchesInFlight < 1) {
+            throw new IllegalArgumentException("maxBatchesInFlight " + maxBatchesInFlight
+                    + " must be at least 1");
+        }
+        this.db = db;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.consistentReads = consistentReads;
+        this.requestMetricCollector = requestMetricCollector;
+    }
+
+    /**
+     * Loads the items of all the keys of the iterator given, and returns once
+     * they have all been handed to the handler.
+     *
+     * @throws AmazonClientException if a request fails, or keys are left
+     *             unprocessed more than
+     *             {@link DynamoDBMapper#BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS}
+     *             times
+     */
+    void load(Iterator<PendingKey> keys, final PageHandler handler) {
+        new BatchPipeline<PendingKey, List<PendingKey>>(maxBatchesInFlight,
+                DynamoDBMapper.MAX_KEYS_PER_BATCH_GET, "load") {
+            @Override
+            List<PendingKey> send(List<PendingKey> batch) {
+                return loadBatch(batch, handler);
+            }
+
+            @Override
+            List<PendingKey> completed(List<PendingKey> unprocessed) {
+                return unprocessed;
+            }
+        }.run(keys);
+    }
+
+    /**
+     * Makes one BatchGetItem request, hands the items received to the
+     * handler, and returns the keys left unprocessed.
+     */
+    private List<PendingKey> loadBatch(List<PendingKey> batch, PageHandler handler) {
+        int attempt = 0;
+        for (PendingKey key : batch) {
+            attempt = Math.max(attempt, key.attempt);
+        }
+        if (attempt > 0) {
+            BatchPipeline.pause(attempt);
+            if (attempt > DynamoDBMapper.BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
+                throw new AmazonClientException(
+                        "Batch Get Item request to server hasn't received any data. "
+                                + "Please try again later.");
+            }
+        }
+
+        BatchGetItemRequest request = new BatchGetItemRequest()
+                .withRequestMetricCollector(requestMetricCollector);
+        request.setRequestItems(toRequestItems(batch));
+        BatchGetItemResult result = db.batchGetItem(
+                DynamoDBMapper.applyBatchOperationUserAgent(request));
+
+        Map<String, List<Map<String, AttributeValue>>> responses = result.getResponses();
+        if (responses != null) {
+            for (Map.Entry<String, List<Map<String, AttributeValue>>> entry : responses
+                    .entrySet()) {
+                handler.onPage(entry.getKey(), entry.getValue());
+            }
+        }
+
+        List<PendingKey> unprocessed = new LinkedList<PendingKey>();
+        Map<String, KeysAndAttributes> unprocessedKeys = result.getUnprocessedKeys();
+        if (unprocessedKeys != null) {
+            for (Map.Entry<String, KeysAndAttributes> entry : unprocessedKeys.entrySet()) {
+                for (Map<String, AttributeValue> key : entry.getValue().getKeys()) {
+                    unprocessed.add(new PendingKey(entry.getKey(), key, attempt + 1));
+                }
+            }
+        }
+        return unprocessed;
+    }
+
+    private Map<String, KeysAndAttributes> toRequestItems(List<PendingKey> batch) {
+        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+        for (PendingKey key : batch) {
+            KeysAndAttributes keysAndAttributes = requestItems.get(key.tableName);
+            if (keysAndAttributes == null) {
+                keysAndAttributes = new KeysAndAttributes()
+                        .withConsistentRead(consistentReads)
+                        .withKeys(new LinkedList<Map<String, AttributeValue>>());
+                requestItems.put(key.tableName, keysAndAttributes);
+            }
+            keysAndAttributes.getKeys().add(key.key);
+        }
+        return requestItems;
+    }
+
+    /**
+     * A key of the stream, with the number of times it has been left
+     * unprocessed.
+     */
+    static final class PendingKey {
+        final String tableName;
+        final Map<String, AttributeValue> key;
+        final int attempt;
+
+        PendingKey(String tableName, Map<String, AttributeValue> key) {
+            this(tableName, key, 0);
+        }
+
+        PendingKey(String tableName, Map<String, AttributeValue> key, int attempt) {
+            this.tableName = tableName;
+            this.key = key;
+            this.attempt = attempt;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import com.amazonaws.AmazonClientException;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sends a stream of elements in batches, keeping up to a given number of
+ * batches in flight. This is the loop shared by {@link BatchWriteTask} and
+ * {@link BatchLoadTask}.
+ * <p>
+ * Batches are filled on the calling thread as the previous ones complete, so
+ * only the elements in flight are held in memory. The elements a batch hands
+ * back for a retry are sent again before the rest of the stream, in batches
+ * of their own: a retry never shares a request with a later element for the
+ * same item, which DynamoDB would reject as a duplicate.
+ *
+ * @param <E> the elements of the stream
+ * @param <R> the outcome of a batch
+ */
+abstract class BatchPipeline<E, R> {
+
+    /** The base delay of the backoff before a retry */
+    static final long BASE_BACKOFF_IN_MILLISECONDS = 100;
+
+    /** Shared source of backoff jitter; Random is safe for concurrent use */
+    private static final Random RANDOM = new Random();
+
+    private final int maxBatchesInFlight;
+    private final int maxBatchSize;
+    private final String operation;
+
+    /**
+     * @param maxBatchesInFlight the largest number of batches to send at once;
+     *            with 1 the batches are sent on the calling thread
+     * @param maxBatchSize the largest number of elements in a batch
+     * @param operation the name of the operation, used in error messages
+     */
+    BatchPipeline(int maxBatchesInFlight, int maxBatchSize, String operation) {
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.maxBatchSize = maxBatchSize;
+        this.operation = operation;
+    }
+
+    /**
+     * Sends a batch. Called from several threads at once when more than one
+     * batch may be in flight.
+     */
+    abstract R send(List<E> batch);
+
+    /**
+     * Takes in the outcome of a batch on the calling thread, and returns the
+     * elements of the batch to send again.
+     */
+    abstract List<E> completed(R outcome);
+
+    /**
+     * Sends all the elements of the iterator given, and returns once the
+     * outcomes of all the batches have been taken in.
+     *
+     * @throws AmazonClientException if sending a batch throws, or the calling
+     *             thread is interrupted
+     */
+    final void run(Iterator<E> elements) {
+        LinkedList<E> retries = new LinkedList<E>();
+
+        ExecutorService executorService = null;
+        Executor executor;
+        if (maxBatchesInFlight == 1) {
+            executor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            };
+        } else {
+            executorService = Executors.newFixedThreadPool(maxBatchesInFlight);
+            executor = executorService;
+        }
+        CompletionService<R> completionService = new ExecutorCompletionService<R>(executor);
+
+        boolean completed = false;
+        try {
+            int inFlight = 0;
+            while (true) {
+                while (inFlight < maxBatchesInFlight) {
+                    final List<E> batch = nextBatch(retries, elements);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    completionService.submit(new Callable<R>() {
+                        @Override
+                        public R call() {
+                            return send(batch);
+                        }
+                    });
+                    inFlight++;
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+
+                R outcome = take(completionService);
+                inFlight--;
+                retries.addAll(completed(outcome));
+            }
+            completed = true;
+        } finally {
+            if (executorService != null) {
+                if (completed) {
+                    executorService.shutdown();
+                } else {
+                    executorService.shutdownNow();
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes up to maxBatchSize elements to retry or, when there are none, of
+     * the stream.
+     */
+    private List<E> nextBatch(LinkedList<E> retries, Iterator<E> elements) {
+        List<E> batch = new LinkedList<E>();
+        while (batch.size() < maxBatchSize && !retries.isEmpty()) {
+            batch.add(retries.removeFirst());
+        }
+        if (!batch.isEmpty()) {
+            return batch;
+        }
+        while (batch.size() < maxBatchSize && elements.hasNext()) {
+            batch.add(elements.next());
+        }
+        return batch;
+    }
+
+    /**
+     * Sleeps before the given attempt of a batch, for a random time up to an
+     * exponentially growing bound ("full jitter"), so that callers throttled
+     * together don't retry together. The bound is capped at
+     * {@link DynamoDBMapper#MAX_BACKOFF_IN_MILLISECONDS}.
+     *
+     * @throws AmazonClientException if the thread is interrupted
+     */
+    static void pause(int attempt) {
+        long bound = BASE_BACKOFF_IN_MILLISECONDS << Math.min(attempt, 16);
+        bound = Math.min(bound, DynamoDBMapper.MAX_BACKOFF_IN_MILLISECONDS);
+        long delay = (long) (RANDOM.nextDouble() * bound);
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
+    private R take(CompletionService<R> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Batch " + operation
+                    + " interrupted by other thread.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AmazonClientException) {
+                throw (AmazonClientException) e.getCause();
+            }
+            throw new AmazonClientException("Internal error during the batch " + operation
+                    + ".", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.BatchWriteResult;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.FailedBatch;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes a stream of write requests with BatchWriteItem, keeping up to a
+ * given number of batches in flight with a {@link BatchPipeline}.
+ * <p>
+ * Items left unprocessed by DynamoDB are sent again after a jittered
+ * exponential backoff, ahead of the rest of the stream and in requests of
+ * their own.
+ */
+class BatchWriteTask {
+
+    private final AmazonDynamoDB db;
+    private final int maxBatchesInFlight;
+
+    private final AtomicLong itemsWritten = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retriedItems = new AtomicLong();
+    private final AtomicLong throttledRequests = new AtomicLong();
+
+    /**
+     * @param db the client to write with
+     * @param maxBatchesInFlight the largest number of BatchWriteItem requests
+     *            to make at once; with 1 the batches are written on the
+     *            calling thread
+     */
+    BatchWriteTask(AmazonDynamoDB db, int maxBatchesInFlight) {
+        if (maxBatchesInFlight < 1) {
+            throw new IllegalArgumentException("maxBatchesInFlight " + maxBatchesInFlight
+                    + " must be at least 1");
+        }
+        this.db = db;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+    }
+
+    /**
+     * Writes all the requests of the iterator given, and returns once they
+     * have all been written or have failed.
+     */
+    BatchWriteResult write(Iterator<PendingWrite> writes) {
+        long start = System.currentTimeMillis();
+        final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
+
+        new BatchPipeline<PendingWrite, BatchOutcome>(maxBatchesInFlight,
+                DynamoDBMapper.MAX_ITEMS_PER_BATCH, "write") {
+            @Override
+            BatchOutcome send(List<PendingWrite> batch) {
+                BatchOutcome outcome = new BatchOutcome();
+                writeBatch(batch, outcome);
+                return outcome;
+            }
+
+            @Override
+            List<PendingWrite> completed(BatchOutcome outcome) {
+                failedBatches.addAll(outcome.failedBatches);
+                return outcome.unprocessed;
+            }
+        }.run(writes);
+
+        return new BatchWriteResult(failedBatches, itemsWritten.get(), requests.get(),
+                retriedItems.get(), throttledRequests.get(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Makes one BatchWriteItem request. It divides the batch if the request is
+     * too large (the total size of the request is beyond 1M).
+     */
+    private void writeBatch(List<PendingWrite> batch, BatchOutcome outcome) {
+        Map<String, List<WriteRequest>> requestItems = toRequestItems(batch);
+        int attempt = 0;
+        for (PendingWrite write : batch) {
+            attempt = Math.max(attempt, write.attempt);
+        }
+
+        BatchWriteItemResult result;
+        try {
+            requests.incrementAndGet();
+            result = db.batchWriteItem(DynamoDBMapper.applyBatchOperationUserAgent(
+                    new BatchWriteItemRequest().withRequestItems(requestItems)));
+        } catch (Exception e) {
+            if (e instanceof AmazonServiceException
+                    && RetryUtils.isRequestEntityTooLargeException((AmazonServiceException) e)
+                    && batch.size() > 1) {
+                int half = batch.size() / 2;
+                writeBatch(batch.subList(0, half), outcome);
+                writeBatch(batch.subList(half, batch.size()), outcome);
+                return;
+            }
+
+            FailedBatch failedBatch = new FailedBatch();
+            failedBatch.setUnprocessedItems(requestItems);
+            failedBatch.setException(e);
+            outcome.failedBatches.add(failedBatch);
+
+            if (e instanceof AmazonServiceException
+                    && RetryUtils.isThrottlingException((AmazonServiceException) e)) {
+                throttledRequests.incrementAndGet();
+                BatchPipeline.pause(attempt + 1);
+            }
+            return;
+        }
+
+        int unprocessedCount = 0;
+        Map<String, List<WriteRequest>> unprocessed = result.getUnprocessedItems();
+        if (unprocessed != null) {
+            for (Map.Entry<String, List<WriteRequest>> entry : unprocessed.entrySet()) {
+                for (WriteRequest request : entry.getValue()) {
+                    outcome.unprocessed.add(
+                            new PendingWrite(entry.getKey(), request, attempt + 1));
+                    unprocessedCount++;
+                }
+            }
+        }
+        itemsWritten.addAndGet(batch.size() - unprocessedCount);
+
+        if (unprocessedCount > 0) {
+            retriedItems.addAndGet(unprocessedCount);
+            // Hold on to the slot while backing off, so that the whole stream
+            // slows down rather than only these items.
+            BatchPipeline.pause(attempt + 1);
+        }
+    }
+
+    private static Map<String, List<WriteRequest>> toRequestItems(List<PendingWrite> batch) {
+        Map<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        for (PendingWrite write : batch) {
+            List<WriteRequest> requests = requestItems.get(write.tableName);
+            if (requests == null) {
+                requests = new LinkedList<WriteRequest>();
+                requestItems.put(write.tableName, requests);
+            }
+            requests.add(write.request);
+        }
+        return requestItems;
+    }
+
+    /**
+     * A write request of the stream, with the number of times it has been
+     * left unprocessed.
+     */
+    static final class PendingWrite {
+        final String tableName;
+        final WriteRequest request;
+        final int attempt;
+
+        PendingWrite(String tableName, WriteRequest request) {
+            this(tableName, request, 0);
+        }
+
+        PendingWrite(String tableName, WriteRequest request, int attempt) {
+            this.tableName = tableName;
+            this.request = request;
+            this.attempt = attempt;
+        }
+    }
+
+    /**
+     * What a batch leaves to the calling thread.
+     */
+    private static final class BatchOutcome {
+        final List<PendingWrite> unprocessed = new LinkedList<PendingWrite>();
+        final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
+    }
+}
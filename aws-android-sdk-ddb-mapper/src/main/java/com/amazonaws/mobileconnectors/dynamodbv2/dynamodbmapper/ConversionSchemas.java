@@ -94,11 +94,14 @@ import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Pre-defined strategies for mapping between Java types and DynamoDB types.
@@ -152,6 +155,14 @@ public final class ConversionSchemas {
 
     static final ConversionSchema DEFAULT = V2_COMPATIBLE;
 
+    /**
+     * Returns whether the schema is one of the pre-defined schemas above,
+     * which live as long as the class does.
+     */
+    static boolean isPredefined(ConversionSchema schema) {
+        return schema == V1 || schema == V2_COMPATIBLE || schema == V2;
+    }
+
     static class StandardConversionSchema implements ConversionSchema {
 
         private final String name;
@@ -203,6 +214,16 @@ public final class ConversionSchemas {
         private final DynamoDBReflector reflector;
         private final S3ClientCache s3cc;
 
+        /*
+         * Codecs of the classes converted so far, and the marshallers bound to
+         * their getters. Both are built on first use; afterwards converting an
+         * item only reads them, without taking a lock.
+         */
+        private final ConcurrentMap<Class<?>, ItemCodec> codecs =
+                new ConcurrentHashMap<Class<?>, ItemCodec>();
+        private final ConcurrentMap<Method, ArgumentMarshaller> boundMarshallers =
+                new ConcurrentHashMap<Method, ArgumentMarshaller>();
+
         public StandardItemConverter(
                 MarshallerSet marshallerSet,
                 UnmarshallerSet unmarshallerSet,
@@ -218,7 +239,7 @@ public final class ConversionSchemas {
         @Override
         public DynamoDBMapperFieldModel getFieldModel(Method getter) {
             String attributeName = reflector.getAttributeName(getter);
-            ArgumentMarshaller marshaller = getMarshaller(getter);
+            ArgumentMarshaller marshaller = getBoundMarshaller(getter);
 
             DynamoDBAttributeType attributeType = null;
             if (marshaller instanceof StringAttributeMarshaller) {
@@ -254,7 +275,7 @@ public final class ConversionSchemas {
                 return null;
             }
 
-            ArgumentMarshaller marshaller = getMarshaller(getter);
+            ArgumentMarshaller marshaller = getBoundMarshaller(getter);
             return marshaller.marshall(object);
         }
 
@@ -264,19 +285,22 @@ public final class ConversionSchemas {
                 return null;
             }
 
-            Class<?> clazz = object.getClass();
+            ItemCodec codec = getCodec(object.getClass());
             Map<String, AttributeValue> result =
                     new HashMap<String, AttributeValue>();
 
-            for (Method getter : reflector.getRelevantGetters(clazz)) {
+            for (AttributeCodec attribute : codec.attributes) {
                 Object getterResult =
-                        ReflectionUtils.safeInvoke(getter, object);
+                        ReflectionUtils.safeInvoke(attribute.getter, object);
 
                 if (getterResult != null) {
-                    AttributeValue value = convert(getter, getterResult);
+                    ArgumentMarshaller marshaller = attribute.marshaller;
+                    if (marshaller == null) {
+                        marshaller = getMarshaller(attribute.getter);
+                    }
+                    AttributeValue value = marshaller.marshall(getterResult);
                     if (value != null) {
-                        String name = reflector.getAttributeName(getter);
-                        result.put(name, value);
+                        result.put(attribute.name, value);
                     }
                 }
             }
@@ -284,6 +308,71 @@ public final class ConversionSchemas {
             return result;
         }
 
+        /**
+         * Returns the codec of the class given, building it the first time
+         * the class is converted.
+         */
+        private ItemCodec getCodec(Class<?> clazz) {
+            ItemCodec codec = codecs.get(clazz);
+            if (codec == null) {
+                codec = buildCodec(clazz);
+                ItemCodec existing = codecs.putIfAbsent(clazz, codec);
+                if (existing != null) {
+                    codec = existing;
+                }
+            }
+            return codec;
+        }
+
+        private ItemCodec buildCodec(Class<?> clazz) {
+            Collection<Method> getters = reflector.getRelevantGetters(clazz);
+            AttributeCodec[] attributes = new AttributeCodec[getters.size()];
+            int i = 0;
+            for (Method getter : getters) {
+                attributes[i++] = buildAttributeCodec(getter);
+            }
+            return new ItemCodec(attributes);
+        }
+
+        /*
+         * An attribute whose marshaller, setter or unmarshaller can't be
+         * resolved is only an error once a value of it is converted, so those
+         * are left null here and resolved again (and fail) on use.
+         */
+        private AttributeCodec buildAttributeCodec(Method getter) {
+            String name = reflector.getAttributeName(getter);
+
+            ArgumentMarshaller marshaller = null;
+            try {
+                marshaller = getBoundMarshaller(getter);
+            } catch (RuntimeException e) {
+                LOGGER.debug("No marshaller for " + getter + " yet", e);
+            }
+
+            Method setter = null;
+            ArgumentUnmarshaller unmarshaller = null;
+            try {
+                setter = reflector.getSetter(getter);
+                unmarshaller = getUnmarshaller(getter, setter);
+            } catch (RuntimeException e) {
+                LOGGER.debug("No unmarshaller for " + getter + " yet", e);
+            }
+
+            return new AttributeCodec(name, getter, marshaller, setter,
+                    unmarshaller);
+        }
+
+        private ArgumentMarshaller getBoundMarshaller(Method getter) {
+            ArgumentMarshaller marshaller = boundMarshallers.get(getter);
+            if (marshaller == null) {
+                marshaller = getMarshaller(getter);
+                if (marshaller != null) {
+                    boundMarshallers.putIfAbsent(getter, marshaller);
+                }
+            }
+            return marshaller;
+        }
+
         private ArgumentMarshaller getMarshaller(Method getter) {
             ArgumentMarshaller marshaller =
                     marshallerSet.getMarshaller(getter);
@@ -413,11 +502,10 @@ public final class ConversionSchemas {
                 return result;
             }
 
-            for (Method m : reflector.getRelevantGetters(clazz)) {
-                String attributeName = reflector.getAttributeName(m);
-                AttributeValue av = value.get(attributeName);
+            for (AttributeCodec attribute : getCodec(clazz).attributes) {
+                AttributeValue av = value.get(attribute.name);
                 if (av != null) {
-                    setValue(result, m, av);
+                    setValue(result, attribute, av);
                 }
             }
 
@@ -426,12 +514,15 @@ public final class ConversionSchemas {
 
         private void setValue(
                 Object target,
-                Method getter,
+                AttributeCodec attribute,
                 AttributeValue value) {
 
-            Method setter = reflector.getSetter(getter);
-            ArgumentUnmarshaller unmarshaller =
-                    getUnmarshaller(getter, setter);
+            Method setter = attribute.setter;
+            ArgumentUnmarshaller unmarshaller = attribute.unmarshaller;
+            if (unmarshaller == null) {
+                setter = reflector.getSetter(attribute.getter);
+                unmarshaller = getUnmarshaller(attribute.getter, setter);
+            }
 
             Object unmarshalled = unmarshall(unmarshaller, setter, value);
             ReflectionUtils.safeInvoke(setter, target, unmarshalled);
@@ -601,6 +692,43 @@ public final class ConversionSchemas {
 
     }
 
+    /**
+     * The attributes of a mapped class, resolved once per class.
+     */
+    static final class ItemCodec {
+        final AttributeCodec[] attributes;
+
+        ItemCodec(AttributeCodec[] attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * A mapped attribute with its accessors and the marshaller and
+     * unmarshaller bound to them.
+     */
+    static final class AttributeCodec {
+        final String name;
+        final Method getter;
+        final ArgumentMarshaller marshaller;
+        final Method setter;
+        final ArgumentUnmarshaller unmarshaller;
+
+        AttributeCodec(
+                String name,
+                Method getter,
+                ArgumentMarshaller marshaller,
+                Method setter,
+                ArgumentUnmarshaller unmarshaller) {
+
+            this.name = name;
+            this.getter = getter;
+            this.marshaller = marshaller;
+            this.setter = setter;
+            this.unmarshaller = unmarshaller;
+        }
+    }
+
     static interface MarshallerSet {
         ArgumentMarshaller getMarshaller(Method getter);
 
@@ -16,22 +16,21 @@
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import com.amazonaws.AmazonClientException;
-import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.BatchLoadTask.PageHandler;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.BatchLoadTask.PendingKey;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.BatchWriteTask.PendingWrite;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.ConsistentReads;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBTableSchemaParser.TableIndexesInfo;
-import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
-import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
 import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
-import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
@@ -42,7 +41,6 @@ import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
-import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
 import com.amazonaws.services.dynamodbv2.model.PutRequest;
@@ -73,9 +71,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Object mapper for domain-object interaction with DynamoDB.
@@ -178,13 +177,26 @@ public class DynamoDBMapper {
     private final DynamoDBTableSchemaParser schemaParser = new DynamoDBTableSchemaParser();
     private final VersionIncrementor incrementor = new VersionIncrementor();
 
+    /*
+     * Converters hold the codecs of the classes they have converted, so they
+     * are kept for the lifetime of the mapper, one per pre-defined conversion
+     * schema. Nothing would evict the converters of other schemas, which may
+     * be created per config, so those are created per operation instead.
+     */
+    private final ConcurrentMap<ConversionSchema, ItemConverter> converters =
+            new ConcurrentHashMap<ConversionSchema, ItemConverter>();
+
     private final AttributeTransformer transformer;
 
-    /** The max back off time for batch write */
+    /** The max back off time for batch writes and loads */
     static final long MAX_BACKOFF_IN_MILLISECONDS = 1000 * 3;
 
     /** The max number of items allowed in a BatchWrite request */
     static final int MAX_ITEMS_PER_BATCH = 25;
+
+    /** The max number of keys allowed in a BatchGetItem request */
+    static final int MAX_KEYS_PER_BATCH_GET = 100;
+
     /**
      * This retry count is applicable only when every batch get item request
      * results in no data retrieved from server and the un processed keys is
@@ -1470,14 +1482,121 @@ public class DynamoDBMapper {
             List<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
         config = mergeConfig(config);
 
-        List<FailedBatch> totalFailedBatches = new LinkedList<FailedBatch>();
+        // Convert every object before the first request, so that a mapping
+        // error leaves the tables untouched.
+        List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
+        List<PendingWrite> writes = new ArrayList<PendingWrite>(
+                objectsToWrite.size() + objectsToDelete.size());
+        Iterator<PendingWrite> requests = new WriteRequestIterator(objectsToWrite.iterator(),
+                objectsToDelete.iterator(), config, inMemoryUpdates);
+        while (requests.hasNext()) {
+            writes.add(requests.next());
+        }
 
-        HashMap<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        return write(writes.iterator(), 1, inMemoryUpdates).getFailedBatches();
+    }
 
-        ItemConverter converter = getConverter(config);
+    /**
+     * Saves and deletes the objects given using calls to the
+     * {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)} API, with
+     * up to the given number of calls in flight at once.
+     * <p>
+     * The objects are converted as they are written, so the iterables may be
+     * streams of any length. Items left unprocessed by DynamoDB are retried
+     * after a jittered exponential backoff, ahead of the following objects.
+     * Keys generated for {@link DynamoDBAutoGeneratedKey} attributes are set
+     * on the objects once every batch has been written.
+     * </p>
+     * <p>
+     * Unlike {@link #batchWrite(List, List, DynamoDBMapperConfig)}, an object
+     * that can't be converted fails the call only when it is reached: the
+     * batches before it stay written, and no generated keys are set on the
+     * objects.
+     * </p>
+     *
+     * @param objectsToWrite The objects to save to DynamoDB. <b>No version
+     *            checks are performed</b>, as required by the
+     *            {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)}
+     *            API.
+     * @param objectsToDelete The objects to delete from DynamoDB. <b>No
+     *            version checks are performed</b>.
+     * @param maxBatchesInFlight The largest number of batches to write at
+     *            once. With more than one, the batches are written by a pool
+     *            of threads for the duration of the call.
+     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()} is
+     *            considered, as in
+     *            {@link #batchWrite(List, List, DynamoDBMapperConfig)}.
+     * @return The failed batches, with the items and the exception of each,
+     *         and counters of the write.
+     */
+    public BatchWriteResult batchWrite(Iterable<? extends Object> objectsToWrite,
+            Iterable<? extends Object> objectsToDelete, int maxBatchesInFlight,
+            DynamoDBMapperConfig config) {
+        config = mergeConfig(config);
 
         List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
-        for (Object toWrite : objectsToWrite) {
+        return write(new WriteRequestIterator(objectsToWrite.iterator(),
+                objectsToDelete.iterator(), config, inMemoryUpdates), maxBatchesInFlight,
+                inMemoryUpdates);
+    }
+
+    /**
+     * Writes the requests given, and then sets the keys generated for them on
+     * the objects.
+     */
+    private BatchWriteResult write(Iterator<PendingWrite> writes, int maxBatchesInFlight,
+            List<ValueUpdate> inMemoryUpdates) {
+        BatchWriteResult result = new BatchWriteTask(db, maxBatchesInFlight).write(writes);
+
+        // Once the entire batch is processed, update assigned keys in memory
+        for (ValueUpdate update : inMemoryUpdates) {
+            update.apply();
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts the objects to save and then the objects to delete into write
+     * requests, one at a time as they are asked for.
+     */
+    private final class WriteRequestIterator implements Iterator<PendingWrite> {
+
+        private final Iterator<? extends Object> objectsToWrite;
+        private final Iterator<? extends Object> objectsToDelete;
+        private final DynamoDBMapperConfig config;
+        private final ItemConverter converter;
+        private final List<ValueUpdate> inMemoryUpdates;
+
+        WriteRequestIterator(Iterator<? extends Object> objectsToWrite,
+                Iterator<? extends Object> objectsToDelete, DynamoDBMapperConfig config,
+                List<ValueUpdate> inMemoryUpdates) {
+            this.objectsToWrite = objectsToWrite;
+            this.objectsToDelete = objectsToDelete;
+            this.config = config;
+            this.converter = getConverter(config);
+            this.inMemoryUpdates = inMemoryUpdates;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return objectsToWrite.hasNext() || objectsToDelete.hasNext();
+        }
+
+        @Override
+        public PendingWrite next() {
+            if (objectsToWrite.hasNext()) {
+                return toPutRequest(objectsToWrite.next());
+            }
+            return toDeleteRequest(objectsToDelete.next());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private PendingWrite toPutRequest(Object toWrite) {
             Class<?> clazz = toWrite.getClass();
             String tableName = getTableName(clazz, toWrite, config);
 
@@ -1503,86 +1622,25 @@ public class DynamoDBMapper {
                 }
             }
 
-            if (!requestItems.containsKey(tableName)) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
-            }
-
             AttributeTransformer.Parameters<?> parameters =
                     toParameters(attributeValues, clazz, tableName, config);
 
-            requestItems.get(tableName).add(
+            return new PendingWrite(tableName,
                     new WriteRequest().withPutRequest(
                             new PutRequest().withItem(
                                     transformAttributes(parameters))));
         }
 
-        for (Object toDelete : objectsToDelete) {
+        private PendingWrite toDeleteRequest(Object toDelete) {
             Class<?> clazz = toDelete.getClass();
 
             String tableName = getTableName(clazz, toDelete, config);
 
             Map<String, AttributeValue> key = getKey(converter, toDelete);
 
-            if (!requestItems.containsKey(tableName)) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
-            }
-
-            requestItems.get(tableName).add(
+            return new PendingWrite(tableName,
                     new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
         }
-
-        // Break into chunks of 25 items and make service requests to DynamoDB
-        while (!requestItems.isEmpty()) {
-
-            HashMap<String, List<WriteRequest>> batch =
-                    new HashMap<String, List<WriteRequest>>();
-
-            int i = 0;
-
-            Iterator<Entry<String, List<WriteRequest>>> tableIter = requestItems.entrySet()
-                    .iterator();
-            while (tableIter.hasNext() && i < MAX_ITEMS_PER_BATCH) {
-
-                Entry<String, List<WriteRequest>> tableRequest = tableIter.next();
-
-                batch.put(tableRequest.getKey(), new LinkedList<WriteRequest>());
-                Iterator<WriteRequest> writeRequestIter = tableRequest.getValue().iterator();
-
-                while (writeRequestIter.hasNext() && i++ < MAX_ITEMS_PER_BATCH) {
-                    WriteRequest writeRequest = writeRequestIter.next();
-                    batch.get(tableRequest.getKey()).add(writeRequest);
-                    writeRequestIter.remove();
-                }
-
-                // If we've processed all the write requests for this table,
-                // remove it from the parent iterator.
-                if (!writeRequestIter.hasNext()) {
-                    tableIter.remove();
-                }
-            }
-
-            List<FailedBatch> failedBatches = writeOneBatch(batch);
-            if (failedBatches != null) {
-                totalFailedBatches.addAll(failedBatches);
-
-                // If contains throttling exception, we do a backoff
-                if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(1000 * 2);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new AmazonClientException(e.getMessage(), e);
-                    }
-                }
-            }
-        }
-
-        // Once the entire batch is processed, update assigned keys in memory
-        for (ValueUpdate update : inMemoryUpdates) {
-            update.apply();
-        }
-
-        return totalFailedBatches;
     }
 
     /**
@@ -1591,120 +1649,13 @@ public class DynamoDBMapper {
      * beyond 1M).
      */
     List<FailedBatch> writeOneBatch(Map<String, List<WriteRequest>> batch) {
-
-        List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
-        Map<String, List<WriteRequest>> firstHalfBatch = new HashMap<String, List<WriteRequest>>();
-        Map<String, List<WriteRequest>> secondHalfBatch = new HashMap<String, List<WriteRequest>>();
-        FailedBatch failedBatch = callUntilCompletion(batch);
-
-        if (failedBatch != null) {
-            // If the exception is request entity too large, we divide the batch
-            // into smaller parts.
-
-            if (failedBatch.getException() instanceof AmazonServiceException
-                    && RetryUtils
-                            .isRequestEntityTooLargeException((AmazonServiceException) failedBatch
-                                    .getException())) {
-
-                // If only one item left, the item size must beyond 64k, which
-                // exceedes the limit.
-
-                if (computeFailedBatchSize(failedBatch) == 1) {
-                    failedBatches.add(failedBatch);
-                } else {
-                    divideBatch(batch, firstHalfBatch, secondHalfBatch);
-                    failedBatches.addAll(writeOneBatch(firstHalfBatch));
-                    failedBatches.addAll(writeOneBatch(secondHalfBatch));
-                }
-
-            } else {
-                failedBatches.add(failedBatch);
-            }
-
-        }
-        return failedBatches;
-    }
-
-    /**
-     * Check whether there are throttling exception in the failed batches.
-     */
-    boolean containsThrottlingException(List<FailedBatch> failedBatches) {
-        for (FailedBatch failedBatch : failedBatches) {
-            Exception e = failedBatch.getException();
-            if (e instanceof AmazonServiceException
-                    && RetryUtils.isThrottlingException((AmazonServiceException) e)) {
-                return true;
+        List<PendingWrite> writes = new LinkedList<PendingWrite>();
+        for (Entry<String, List<WriteRequest>> entry : batch.entrySet()) {
+            for (WriteRequest request : entry.getValue()) {
+                writes.add(new PendingWrite(entry.getKey(), request));
             }
         }
-        return false;
-    }
-
-    /**
-     * Divide the batch of objects to save into two smaller batches. Each
-     * contains half of the elements.
-     */
-    private void divideBatch(Map<String, List<WriteRequest>> batch,
-            Map<String, List<WriteRequest>> firstHalfBatch,
-            Map<String, List<WriteRequest>> secondHalfBatch) {
-        for (String key : batch.keySet()) {
-
-            List<WriteRequest> requests = batch.get(key);
-
-            List<WriteRequest> firstHalfRequests = requests.subList(0, requests.size() / 2);
-
-            List<WriteRequest> secondHalfRequests = requests.subList(requests.size() / 2,
-                    requests.size());
-
-            firstHalfBatch.put(key, firstHalfRequests);
-
-            secondHalfBatch.put(key, secondHalfRequests);
-
-        }
-
-    }
-
-    /**
-     * Count the total number of unprocessed items in the failed batch.
-     */
-
-    private int computeFailedBatchSize(FailedBatch failedBatch) {
-
-        int count = 0;
-
-        for (String tableName : failedBatch.getUnprocessedItems().keySet()) {
-            count += failedBatch.getUnprocessedItems().get(tableName).size();
-        }
-        return count;
-    }
-
-    /**
-     * Continue trying to process the batch until it finishes or an exception
-     * occurs.
-     */
-
-    private FailedBatch callUntilCompletion(Map<String, List<WriteRequest>> batch) {
-        BatchWriteItemResult result = null;
-        int retries = 0;
-        FailedBatch failedBatch = null;
-        while (true) {
-            try {
-                result = db.batchWriteItem(applyBatchOperationUserAgent(
-                        new BatchWriteItemRequest().withRequestItems(batch)));
-            } catch (Exception e) {
-                failedBatch = new FailedBatch();
-                failedBatch.setUnprocessedItems(batch);
-                failedBatch.setException(e);
-                return failedBatch;
-            }
-            retries++;
-            batch = result.getUnprocessedItems();
-            if (batch.size() > 0) {
-                pauseExponentially(retries);
-            } else {
-                break;
-            }
-        }
-        return failedBatch;
+        return new BatchWriteTask(db, 1).write(writes.iterator()).getFailedBatches();
     }
 
     /**
@@ -1736,52 +1687,122 @@ public class DynamoDBMapper {
      *         mapping that table.
      */
     public Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config) {
-        config = mergeConfig(config);
-        boolean consistentReads = (config.getConsistentReads() == ConsistentReads.CONSISTENT);
-
+        final Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
         if (itemsToGet == null || itemsToGet.isEmpty()) {
-            return new HashMap<String, List<Object>>();
+            return resultSet;
         }
 
-        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
-        Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
-        Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
-        int count = 0;
+        batchLoad(itemsToGet, 1, config, new BatchLoadCallback() {
+            @Override
+            public void onItemsLoaded(String tableName, List<Object> items) {
+                List<Object> objects = resultSet.get(tableName);
+                if (objects == null) {
+                    objects = new LinkedList<Object>();
+                    resultSet.put(tableName, objects);
+                }
+                objects.addAll(items);
+            }
+        });
 
-        ItemConverter converter = getConverter(config);
+        return resultSet;
+    }
+
+    /**
+     * Retrieves multiple items from multiple tables using their primary keys,
+     * with up to the given number of
+     * {@link AmazonDynamoDB#batchGetItem(BatchGetItemRequest)} calls in flight
+     * at once. The loaded objects are handed to the callback as each response
+     * arrives, so they can be processed before the last response; the method
+     * returns once every key has been loaded.
+     * <p>
+     * The keys are converted as they are requested, so the iterable may be a
+     * stream of any length. Keys left unprocessed by DynamoDB are requested
+     * again after a jittered exponential backoff, ahead of the following
+     * keys.
+     * </p>
+     *
+     * @param itemsToGet Key objects, corresponding to the class to fetch, with
+     *            their primary key values set.
+     * @param maxBatchesInFlight The largest number of requests to make at
+     *            once. With more than one, the requests are made, and their
+     *            items unmarshalled, by a pool of threads for the duration of
+     *            the call.
+     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()}
+     *            and {@link DynamoDBMapperConfig#getConsistentReads()} are
+     *            considered.
+     * @param callback Receives the loaded objects. It is never called by two
+     *            threads at once.
+     * @throws AmazonClientException if a request fails, or keys keep being
+     *             left unprocessed.
+     */
+    public void batchLoad(Iterable<? extends Object> itemsToGet, int maxBatchesInFlight,
+            DynamoDBMapperConfig config, final BatchLoadCallback callback) {
+        final DynamoDBMapperConfig finalConfig = mergeConfig(config);
+        final ItemConverter converter = getConverter(finalConfig);
+        boolean consistentReads =
+                (finalConfig.getConsistentReads() == ConsistentReads.CONSISTENT);
+
+        final Map<String, Class<?>> classesByTableName =
+                new ConcurrentHashMap<String, Class<?>>();
+        final Iterator<? extends Object> keyObjects = itemsToGet.iterator();
+        Iterator<PendingKey> keys = new Iterator<PendingKey>() {
+            @Override
+            public boolean hasNext() {
+                return keyObjects.hasNext();
+            }
 
-        for (Object keyObject : itemsToGet) {
-            Class<?> clazz = keyObject.getClass();
+            @Override
+            public PendingKey next() {
+                Object keyObject = keyObjects.next();
+                Class<?> clazz = keyObject.getClass();
 
-            String tableName = getTableName(clazz, keyObject, config);
-            classesByTableName.put(tableName, clazz);
+                String tableName = getTableName(clazz, keyObject, finalConfig);
+                classesByTableName.put(tableName, clazz);
 
-            if (!requestItems.containsKey(tableName)) {
+                return new PendingKey(tableName, getKey(converter, keyObject));
+            }
 
-                requestItems.put(
-                        tableName,
-                        new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
-                                new LinkedList<Map<String, AttributeValue>>()));
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
             }
+        };
 
-            requestItems.get(tableName).getKeys().add(
-                    getKey(converter, keyObject));
+        new BatchLoadTask(db, maxBatchesInFlight, consistentReads,
+                finalConfig.getRequestMetricCollector()).load(keys, new PageHandler() {
+            @Override
+            public void onPage(String tableName, List<Map<String, AttributeValue>> items) {
+                Class<?> clazz = classesByTableName.get(tableName);
+
+                List<Object> objects = new ArrayList<Object>(items.size());
+                for (Map<String, AttributeValue> item : items) {
+                    AttributeTransformer.Parameters<?> parameters =
+                            toParameters(item, clazz, tableName, finalConfig);
+                    objects.add(privateMarshallIntoObject(converter, parameters));
+                }
 
-            // Reach the maximum number which can be handled in a single
-            // batchGet
-            if (++count == 100) {
-                processBatchGetRequest(classesByTableName, requestItems, resultSet, config,
-                        converter);
-                requestItems.clear();
-                count = 0;
+                synchronized (callback) {
+                    callback.onItemsLoaded(tableName, objects);
+                }
             }
-        }
+        });
+    }
 
-        if (count > 0) {
-            processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-        }
+    /**
+     * Receives the objects loaded by
+     * {@link DynamoDBMapper#batchLoad(Iterable, int, DynamoDBMapperConfig, BatchLoadCallback)}
+     * as they arrive.
+     */
+    public interface BatchLoadCallback {
 
-        return resultSet;
+        /**
+         * Called with the objects of one response from a table.
+         *
+         * @param tableName The name of the table the objects were loaded from.
+         * @param items The loaded objects, which can be cast to the class
+         *            mapping the table.
+         */
+        void onItemsLoaded(String tableName, List<Object> items);
     }
 
     /**
@@ -1835,67 +1856,6 @@ public class DynamoDBMapper {
         return batchLoad(keys, config);
     }
 
-    /**
-     * @param config never null
-     */
-    private void processBatchGetRequest(
-            final Map<String, Class<?>> classesByTableName,
-            final Map<String, KeysAndAttributes> requestItems,
-            final Map<String, List<Object>> resultSet,
-            final DynamoDBMapperConfig config,
-            final ItemConverter converter) {
-
-        BatchGetItemResult batchGetItemResult = null;
-        BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest()
-                .withRequestMetricCollector(config.getRequestMetricCollector());
-        batchGetItemRequest.setRequestItems(requestItems);
-
-        int retries = 0;
-
-        do {
-            if (batchGetItemResult != null) {
-                retries++;
-
-                pauseExponentially(retries);
-                if (retries > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
-                    throw new AmazonClientException(
-                            "Batch Get Item request to server hasn't received any data. "
-                                    + "Please try again later.");
-                }
-
-                batchGetItemRequest.setRequestItems(
-                        batchGetItemResult.getUnprocessedKeys());
-            }
-
-            batchGetItemResult = db.batchGetItem(
-                    applyBatchOperationUserAgent(batchGetItemRequest));
-
-            Map<String, List<Map<String, AttributeValue>>> responses = batchGetItemResult
-                    .getResponses();
-            for (String tableName : responses.keySet()) {
-                List<Object> objects = null;
-                if (resultSet.get(tableName) != null) {
-                    objects = resultSet.get(tableName);
-                } else {
-                    objects = new LinkedList<Object>();
-                }
-
-                Class<?> clazz = classesByTableName.get(tableName);
-
-                for (Map<String, AttributeValue> item : responses.get(tableName)) {
-                    AttributeTransformer.Parameters<?> parameters =
-                            toParameters(item, clazz, tableName, config);
-                    objects.add(privateMarshallIntoObject(converter, parameters));
-                }
-
-                resultSet.put(tableName, objects);
-            }
-            // To see whether there are unprocessed keys.
-        } while (batchGetItemResult.getUnprocessedKeys() != null
-                && batchGetItemResult.getUnprocessedKeys().size() > 0);
-
-    }
-
     private final class ValueUpdate {
 
         private final Method method;
@@ -2896,33 +2856,28 @@ public class DynamoDBMapper {
 
     ItemConverter getConverter(DynamoDBMapperConfig config) {
         ConversionSchema schema = config.getConversionSchema();
+        if (!ConversionSchemas.isPredefined(schema)) {
+            return newConverter(schema);
+        }
+
+        ItemConverter converter = converters.get(schema);
+        if (converter == null) {
+            converter = newConverter(schema);
+            ItemConverter existing = converters.putIfAbsent(schema, converter);
+            if (existing != null) {
+                converter = existing;
+            }
+        }
+        return converter;
+    }
 
+    private ItemConverter newConverter(ConversionSchema schema) {
         ConversionSchema.Dependencies params = new ConversionSchema.Dependencies()
                 .with(DynamoDBReflector.class, reflector)
                 .with(S3ClientCache.class, s3cc);
-
         return schema.getConverter(params);
     }
 
-    private void pauseExponentially(int retries) {
-        if (retries == 0) {
-            return;
-        }
-
-        Random random = new Random();
-        long delay = 0;
-        long scaleFactor = 500 + random.nextInt(100);
-        delay = (long) (Math.pow(2, retries) * scaleFactor);
-        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
-
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AmazonClientException(e.getMessage(), e);
-        }
-    }
-
     /**
      * Returns a new map object that merges the two sets of expected value
      * conditions (user-specified or imposed by the internal implementation of
@@ -3015,6 +2970,82 @@ public class DynamoDBMapper {
 
     }
 
+    /**
+     * The return type of
+     * {@link DynamoDBMapper#batchWrite(Iterable, Iterable, int, DynamoDBMapperConfig)}.
+     * It contains the failed batches and counters of the write.
+     */
+    public static class BatchWriteResult {
+
+        private final List<FailedBatch> failedBatches;
+        private final long itemsWritten;
+        private final long requestCount;
+        private final long retriedItemCount;
+        private final long throttledRequestCount;
+        private final long elapsedMillis;
+
+        BatchWriteResult(List<FailedBatch> failedBatches, long itemsWritten, long requestCount,
+                long retriedItemCount, long throttledRequestCount, long elapsedMillis) {
+            this.failedBatches = failedBatches;
+            this.itemsWritten = itemsWritten;
+            this.requestCount = requestCount;
+            this.retriedItemCount = retriedItemCount;
+            this.throttledRequestCount = throttledRequestCount;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Returns the batches that failed, with their items and the exception
+         * causing the failure.
+         */
+        public List<FailedBatch> getFailedBatches() {
+            return failedBatches;
+        }
+
+        /**
+         * Returns the number of items written.
+         */
+        public long getItemsWritten() {
+            return itemsWritten;
+        }
+
+        /**
+         * Returns the number of BatchWriteItem requests made.
+         */
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        /**
+         * Returns the number of times an item was left unprocessed by DynamoDB
+         * and retried.
+         */
+        public long getRetriedItemCount() {
+            return retriedItemCount;
+        }
+
+        /**
+         * Returns the number of requests that failed because of throttling.
+         */
+        public long getThrottledRequestCount() {
+            return throttledRequestCount;
+        }
+
+        /**
+         * Returns how long the write took, in milliseconds.
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Returns the number of items written per second.
+         */
+        public double getItemsPerSecond() {
+            return elapsedMillis == 0 ? 0 : itemsWritten * 1000.0 / elapsedMillis;
+        }
+    }
+
     /**
      * Returns the underlying {@link S3ClientCache} for accessing S3.
      */
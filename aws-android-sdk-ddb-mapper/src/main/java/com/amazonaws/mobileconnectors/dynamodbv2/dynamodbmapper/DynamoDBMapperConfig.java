@@ -360,7 +360,22 @@ public class DynamoDBMapperConfig {
          * Paginated list will eagerly load all the paginated results from
          * DynamoDB as soon as the list is initialized.
          */
-        EAGER_LOADING
+        EAGER_LOADING,
+
+        /**
+         * Like ITERATION_ONLY, but the next page is loaded in the background
+         * while the caller iterates over the current one, so that the time
+         * spent waiting on DynamoDB overlaps with the time spent processing
+         * the results. Besides the page being iterated over, the list keeps at
+         * most two pages in memory: one loaded and waiting, and one being
+         * loaded. The iterator implements {@link java.io.Closeable}: loading
+         * stops once it is closed, or at the latest once it is no longer
+         * reachable, so close an iteration left unfinished.
+         * <p>
+         * Use this configuration to speed up reading large result sets that
+         * are processed item by item.
+         */
+        PREFETCH
     }
 
     /**
@@ -17,13 +17,13 @@ package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Reflection assistant for {@link DynamoDBMapper}
@@ -31,40 +31,25 @@ import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 class DynamoDBReflector {
 
     /*
-     * Several caches for performance. Collectively, they can make this class
-     * over twice as fast.
+     * The model of each class reflected so far. A model is immutable once
+     * built, so every query is answered without taking a lock.
      */
-    private final Map<Class<?>, Collection<Method>> getterCache = new HashMap<Class<?>, Collection<Method>>();
-    private final Map<Class<?>, Method> primaryHashKeyGetterCache = new HashMap<Class<?>, Method>();
-    private final Map<Class<?>, Method> primaryRangeKeyGetterCache = new HashMap<Class<?>, Method>();
+    private final ConcurrentMap<Class<?>, TableModel> tableModels =
+            new ConcurrentHashMap<Class<?>, TableModel>();
 
     /*
-     * All caches keyed by a Method use the getter for a particular mapped
-     * property
+     * Getters that aren't relevant getters of their declaring class, and
+     * therefore not part of any table model.
      */
-    private final Map<Method, Method> setterCache = new HashMap<Method, Method>();
-
-    private final Map<Method, String> attributeNameCache = new HashMap<Method, String>();
-
-    private final Map<Method, Boolean> versionAttributeGetterCache = new HashMap<Method, Boolean>();
-    private final Map<Method, Boolean> autoGeneratedKeyGetterCache = new HashMap<Method, Boolean>();
-
-    private final ReentrantReadWriteLock readWriteLockAttrName = new ReentrantReadWriteLock();
-    private final ReadLock readLockAttrName = readWriteLockAttrName.readLock();
-    private final WriteLock writeLockAttrName = readWriteLockAttrName.writeLock();
+    private final ConcurrentMap<Method, PropertyModel> otherProperties =
+            new ConcurrentHashMap<Method, PropertyModel>();
 
     /**
      * Returns the set of getter methods which are relevant when marshalling or
      * unmarshalling an object.
      */
     Collection<Method> getRelevantGetters(Class<?> clazz) {
-        synchronized (getterCache) {
-            if (!getterCache.containsKey(clazz)) {
-                List<Method> relevantGetters = findRelevantGetters(clazz);
-                getterCache.put(clazz, relevantGetters);
-            }
-            return getterCache.get(clazz);
-        }
+        return getTableModel(clazz).relevantGetters;
     }
 
     static List<Method> findRelevantGetters(Class<?> clazz) {
@@ -77,6 +62,41 @@ class DynamoDBReflector {
         return relevantGetters;
     }
 
+    /**
+     * Returns the model of the class given, building it the first time the
+     * class is reflected.
+     */
+    private TableModel getTableModel(Class<?> clazz) {
+        TableModel model = tableModels.get(clazz);
+        if (model == null) {
+            model = new TableModel(findRelevantGetters(clazz));
+            TableModel existing = tableModels.putIfAbsent(clazz, model);
+            if (existing != null) {
+                model = existing;
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Returns the model of the property of the getter given.
+     */
+    private PropertyModel getPropertyModel(Method getter) {
+        PropertyModel property =
+                getTableModel(getter.getDeclaringClass()).properties.get(getter);
+        if (property == null) {
+            property = otherProperties.get(getter);
+            if (property == null) {
+                property = new PropertyModel(getter);
+                PropertyModel existing = otherProperties.putIfAbsent(getter, property);
+                if (existing != null) {
+                    property = existing;
+                }
+            }
+        }
+        return property;
+    }
+
     /**
      * Returns whether the method given is a getter method we should serialize /
      * deserialize to the service. The method must begin with "get" or "is",
@@ -100,38 +120,15 @@ class DynamoDBReflector {
      * given, or null if the class doesn't have one.
      */
     <T> Method getPrimaryRangeKeyGetter(Class<T> clazz) {
-        synchronized (primaryRangeKeyGetterCache) {
-            if (!primaryRangeKeyGetterCache.containsKey(clazz)) {
-                Method rangeKeyMethod = null;
-                for (Method method : getRelevantGetters(clazz)) {
-                    if (method.getParameterTypes().length == 0
-                            && ReflectionUtils.getterOrFieldHasAnnotation(method,
-                                    DynamoDBRangeKey.class)) {
-                        rangeKeyMethod = method;
-                        break;
-                    }
-                }
-                primaryRangeKeyGetterCache.put(clazz, rangeKeyMethod);
-            }
-            return primaryRangeKeyGetterCache.get(clazz);
-        }
+        return getTableModel(clazz).rangeKeyGetter;
     }
 
     /**
      * Returns all annotated {@link DynamoDBHashKey} and
-     * {@link DynamoDBRangeKey} getters for the class given, throwing an
-     * exception if there isn't one. TODO: caching
+     * {@link DynamoDBRangeKey} getters for the class given.
      */
     <T> Collection<Method> getPrimaryKeyGetters(Class<T> clazz) {
-        List<Method> keyGetters = new LinkedList<Method>();
-        for (Method getter : getRelevantGetters(clazz)) {
-            if (ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBHashKey.class)
-                    || ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBRangeKey.class)) {
-                keyGetters.add(getter);
-            }
-        }
-
-        return keyGetters;
+        return getTableModel(clazz).keyGetters;
     }
 
     /**
@@ -139,21 +136,7 @@ class DynamoDBReflector {
      * throwing an exception if there isn't one.
      */
     <T> Method getPrimaryHashKeyGetter(Class<T> clazz) {
-        Method hashKeyMethod;
-        synchronized (primaryHashKeyGetterCache) {
-            if (!primaryHashKeyGetterCache.containsKey(clazz)) {
-                for (Method method : getRelevantGetters(clazz)) {
-                    if (method.getParameterTypes().length == 0
-                            && ReflectionUtils.getterOrFieldHasAnnotation(method,
-                                    DynamoDBHashKey.class)) {
-                        primaryHashKeyGetterCache.put(clazz, method);
-                        break;
-                    }
-                }
-            }
-            hashKeyMethod = primaryHashKeyGetterCache.get(clazz);
-        }
-
+        Method hashKeyMethod = getTableModel(clazz).hashKeyGetter;
         if (hashKeyMethod == null) {
             throw new DynamoDBMappingException(
                     "Public, zero-parameter hash key property must be annotated with "
@@ -178,98 +161,85 @@ class DynamoDBReflector {
      * Returns the attribute name corresponding to the given getter method.
      */
     String getAttributeName(Method getter) {
+        return getPropertyModel(getter).attributeName;
+    }
+
+    private static String findAttributeName(Method getter) {
         String attributeName;
-        readLockAttrName.lock();
-        try {
-            attributeName = attributeNameCache.get(getter);
-        } finally {
-            readLockAttrName.unlock();
-        }
-        if (attributeName != null)
-            return attributeName;
         DynamoDBHashKey hashKeyAnnotation = ReflectionUtils.getAnnotationFromGetterOrField(getter,
                 DynamoDBHashKey.class);
         if (hashKeyAnnotation != null) {
             attributeName = hashKeyAnnotation.attributeName();
             if (attributeName != null && attributeName.length() > 0)
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBIndexHashKey indexHashKey = ReflectionUtils.getAnnotationFromGetterOrField(getter,
                 DynamoDBIndexHashKey.class);
         if (indexHashKey != null) {
             attributeName = indexHashKey.attributeName();
             if (attributeName != null && attributeName.length() > 0)
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBRangeKey rangeKey = ReflectionUtils.getAnnotationFromGetterOrField(getter,
                 DynamoDBRangeKey.class);
         if (rangeKey != null) {
             attributeName = rangeKey.attributeName();
             if (attributeName != null && attributeName.length() > 0)
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBIndexRangeKey indexRangeKey = ReflectionUtils.getAnnotationFromGetterOrField(
                 getter, DynamoDBIndexRangeKey.class);
         if (indexRangeKey != null) {
             attributeName = indexRangeKey.attributeName();
             if (attributeName != null && attributeName.length() > 0)
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBAttribute attribute = ReflectionUtils.getAnnotationFromGetterOrField(getter,
                 DynamoDBAttribute.class);
         if (attribute != null) {
             attributeName = attribute.attributeName();
             if (attributeName != null && attributeName.length() > 0)
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         DynamoDBVersionAttribute version = ReflectionUtils.getAnnotationFromGetterOrField(getter,
                 DynamoDBVersionAttribute.class);
         if (version != null) {
             attributeName = version.attributeName();
             if (attributeName != null && attributeName.length() > 0)
-                return cacheAttributeName(getter, attributeName);
+                return attributeName;
         }
         // Default to the camel-cased field name of the getter method, inferred
         // according to the Java naming convention.
-        attributeName = ReflectionUtils.getFieldNameByGetter(getter, true);
-        return cacheAttributeName(getter, attributeName);
-    }
-
-    private String cacheAttributeName(Method getter, String attributeName) {
-        writeLockAttrName.lock();
-        try {
-            attributeNameCache.put(getter, attributeName);
-        } finally {
-            writeLockAttrName.unlock();
-        }
-        return attributeName;
+        return ReflectionUtils.getFieldNameByGetter(getter, true);
     }
 
     /**
-     * Returns the setter corresponding to the getter given, or null if no such
-     * setter exists.
+     * Returns the setter corresponding to the getter given, throwing an
+     * exception if no such setter exists.
      */
     Method getSetter(Method getter) {
-        synchronized (setterCache) {
-            if (!setterCache.containsKey(getter)) {
-                String fieldName = ReflectionUtils.getFieldNameByGetter(getter, false);
-                String setterName = "set" + fieldName;
-                Method setter = null;
-                try {
-                    setter = getter.getDeclaringClass().getMethod(setterName,
-                            getter.getReturnType());
-                } catch (NoSuchMethodException e) {
-                    throw new DynamoDBMappingException(
-                            "Expected a public, one-argument method called " + setterName
-                                    + " on class " + getter.getDeclaringClass(), e);
-                } catch (SecurityException e) {
-                    throw new DynamoDBMappingException(
-                            "No access to public, one-argument method called " + setterName
-                                    + " on class " + getter.getDeclaringClass(), e);
-                }
-                setterCache.put(getter, setter);
-            }
-            return setterCache.get(getter);
+        Method setter = getPropertyModel(getter).setter;
+        if (setter == null) {
+            // Not cached, so that the exception is raised on every call.
+            setter = findSetter(getter);
+        }
+        return setter;
+    }
+
+    private static Method findSetter(Method getter) {
+        String fieldName = ReflectionUtils.getFieldNameByGetter(getter, false);
+        String setterName = "set" + fieldName;
+        try {
+            return getter.getDeclaringClass().getMethod(setterName,
+                    getter.getReturnType());
+        } catch (NoSuchMethodException e) {
+            throw new DynamoDBMappingException(
+                    "Expected a public, one-argument method called " + setterName
+                            + " on class " + getter.getDeclaringClass(), e);
+        } catch (SecurityException e) {
+            throw new DynamoDBMappingException(
+                    "No access to public, one-argument method called " + setterName
+                            + " on class " + getter.getDeclaringClass(), e);
         }
     }
 
@@ -278,36 +248,14 @@ class DynamoDBReflector {
      * version attribute.
      */
     boolean isVersionAttributeGetter(Method getter) {
-        synchronized (versionAttributeGetterCache) {
-            if (!versionAttributeGetterCache.containsKey(getter)) {
-                versionAttributeGetterCache.put(
-                        getter,
-                        getter.getName().startsWith("get")
-                                && getter.getParameterTypes().length == 0
-                                && ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                        DynamoDBVersionAttribute.class));
-            }
-            return versionAttributeGetterCache.get(getter);
-        }
+        return getPropertyModel(getter).versionAttribute;
     }
 
     /**
      * Returns whether the method given is an assignable key getter.
      */
     boolean isAssignableKey(Method getter) {
-        synchronized (autoGeneratedKeyGetterCache) {
-            if (!autoGeneratedKeyGetterCache.containsKey(getter)) {
-                autoGeneratedKeyGetterCache.put(
-                        getter,
-                        ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                DynamoDBAutoGeneratedKey.class)
-                                && (ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                        DynamoDBHashKey.class) ||
-                                ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                        DynamoDBRangeKey.class)));
-            }
-            return autoGeneratedKeyGetterCache.get(getter);
-        }
+        return getPropertyModel(getter).assignableKey;
     }
 
     /**
@@ -336,4 +284,77 @@ class DynamoDBReflector {
     boolean hasPrimaryRangeKey(Class<?> clazz) {
         return getPrimaryRangeKeyGetter(clazz) != null;
     }
+
+    /**
+     * The mapping of a class, reflected once. Immutable once built.
+     */
+    private static final class TableModel {
+        final Collection<Method> relevantGetters;
+        final Collection<Method> keyGetters;
+        final Method hashKeyGetter;
+        final Method rangeKeyGetter;
+        final Map<Method, PropertyModel> properties;
+
+        TableModel(List<Method> getters) {
+            List<Method> keys = new LinkedList<Method>();
+            Map<Method, PropertyModel> props = new HashMap<Method, PropertyModel>();
+            Method hashKey = null;
+            Method rangeKey = null;
+            for (Method getter : getters) {
+                boolean isHashKey = ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                        DynamoDBHashKey.class);
+                boolean isRangeKey = ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                        DynamoDBRangeKey.class);
+                if (isHashKey || isRangeKey) {
+                    keys.add(getter);
+                }
+                if (isHashKey && hashKey == null) {
+                    hashKey = getter;
+                }
+                if (isRangeKey && rangeKey == null) {
+                    rangeKey = getter;
+                }
+                props.put(getter, new PropertyModel(getter));
+            }
+            this.relevantGetters = Collections.unmodifiableList(getters);
+            this.keyGetters = Collections.unmodifiableList(keys);
+            this.hashKeyGetter = hashKey;
+            this.rangeKeyGetter = rangeKey;
+            this.properties = props;
+        }
+    }
+
+    /**
+     * The mapping of a single getter, reflected once.
+     */
+    private static final class PropertyModel {
+        final String attributeName;
+        /* null if the getter has no setter */
+        final Method setter;
+        final boolean versionAttribute;
+        final boolean assignableKey;
+
+        PropertyModel(Method getter) {
+            this.attributeName = findAttributeName(getter);
+
+            Method s = null;
+            try {
+                s = findSetter(getter);
+            } catch (DynamoDBMappingException e) {
+                // getSetter raises it again if the setter is asked for
+            }
+            this.setter = s;
+
+            this.versionAttribute = getter.getName().startsWith("get")
+                    && getter.getParameterTypes().length == 0
+                    && ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                            DynamoDBVersionAttribute.class);
+            this.assignableKey = ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                    DynamoDBAutoGeneratedKey.class)
+                    && (ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                            DynamoDBHashKey.class)
+                    || ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                            DynamoDBRangeKey.class));
+        }
+    }
 }
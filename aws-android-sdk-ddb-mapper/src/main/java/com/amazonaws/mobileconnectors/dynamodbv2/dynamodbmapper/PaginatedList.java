@@ -17,7 +17,9 @@ package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.util.PagePrefetcher;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -41,7 +43,7 @@ public abstract class PaginatedList<T> implements List<T> {
 
     private static final String UNMODIFIABLE_MESSAGE = "This is an unmodifiable list";
 
-    private static final String ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE = " is not supported when using ITERATION_ONLY configuration.";
+    private static final String ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE = " is not supported when using %s configuration.";
 
     /**
      * Reference to the DynamoDB mapper for marshalling DynamoDB attributes back
@@ -62,9 +64,9 @@ public abstract class PaginatedList<T> implements List<T> {
     protected boolean allResultsLoaded = false;
 
     /**
-     * All currently loaded results for this list. In ITERATION_ONLY mode, this
-     * list will at most keep one page of the loaded results, and all previous
-     * results will be cleared from the memory.
+     * All currently loaded results for this list. In ITERATION_ONLY and
+     * PREFETCH modes, this list will at most keep one page of the loaded
+     * results, and all previous results will be cleared from the memory.
      */
     protected final List<T> allResults;
 
@@ -76,7 +78,7 @@ public abstract class PaginatedList<T> implements List<T> {
 
     /**
      * Keeps track on whether an iterator of the list has been retrieved. Only
-     * updated and checked when the list is in ITERATION_ONLY mode.
+     * updated and checked when the list is in ITERATION_ONLY or PREFETCH mode.
      */
     private boolean iterationStarted = false;
 
@@ -121,7 +123,7 @@ public abstract class PaginatedList<T> implements List<T> {
     /**
      * Eagerly loads all results for this list.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or PREFETCH mode.
      * </p>
      */
     public synchronized void loadAllResults() {
@@ -199,17 +201,28 @@ public abstract class PaginatedList<T> implements List<T> {
      * only retrieved once, and any previously loaded results will be cleared in
      * the memory during the iteration.
      * </p>
+     * <p>
+     * The same goes for PREFETCH mode, in which the iterator also starts
+     * loading the next pages in the background. The iterator then implements
+     * {@link Closeable}; close it when leaving an iteration unfinished, to
+     * stop the loading right away rather than once the iterator is garbage
+     * collected.
+     * </p>
      */
     @Override
     public Iterator<T> iterator() {
-        return new PaginatedListIterator(
-                paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY);
+        return new PaginatedListIterator(isIterationOnly());
     }
 
-    private class PaginatedListIterator implements Iterator<T> {
+    private boolean isIterationOnly() {
+        return paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY
+                || paginationLoadingStrategy == PaginationLoadingStrategy.PREFETCH;
+    }
+
+    private class PaginatedListIterator implements Iterator<T>, Closeable {
         /**
          * Whether this iterator is constructed by a PaginatedList in
-         * ITERATION_ONLY mode.
+         * ITERATION_ONLY or PREFETCH mode.
          */
         private final boolean iterationOnly;
 
@@ -220,6 +233,12 @@ public abstract class PaginatedList<T> implements List<T> {
          */
         private final List<T> allResultsCopy;
 
+        /**
+         * Loads the next pages in the background. Only set when the list is in
+         * PREFETCH mode and has more pages to load.
+         */
+        private final PagePrefetcher<List<T>> prefetcher;
+
         private Iterator<T> innerIterator;
 
         private int pos = 0;
@@ -231,13 +250,21 @@ public abstract class PaginatedList<T> implements List<T> {
                 synchronized (PaginatedList.this) {
                     if (iterationStarted) {
                         throw new UnsupportedOperationException(
-                                "The list could only be iterated once in ITERATION_ONLY mode.");
+                                "The list could only be iterated once in "
+                                        + paginationLoadingStrategy + " mode.");
                     }
                     iterationStarted = true;
                 }
 
                 allResultsCopy = null; // not needed for ITERATION_ONLY mode
                 innerIterator = allResults.iterator();
+
+                if (paginationLoadingStrategy == PaginationLoadingStrategy.PREFETCH
+                        && nextResults.isEmpty() && !atEndOfResults()) {
+                    prefetcher = new PagePrefetcher<List<T>>(new ListPager(), 1, null, this);
+                } else {
+                    prefetcher = null;
+                }
             }
             else {
                 /*
@@ -251,12 +278,43 @@ public abstract class PaginatedList<T> implements List<T> {
                 allResultsCopy = new ArrayList<T>();
                 allResultsCopy.addAll(allResults);
                 innerIterator = allResultsCopy.iterator();
+                prefetcher = null;
             }
         }
 
         @Override
         public boolean hasNext() {
-            return innerIterator.hasNext() || nextResultsAvailable();
+            return innerIterator.hasNext() || nextPageAvailable();
+        }
+
+        /**
+         * Returns whether there are more results to iterate over, taking them
+         * from the prefetcher when there is one. A return value of true
+         * guarantees that nextResults is non-empty.
+         */
+        private boolean nextPageAvailable() {
+            if (prefetcher == null) {
+                return nextResultsAvailable();
+            }
+            // empty pages are skipped
+            while (nextResults.isEmpty()) {
+                List<T> page = prefetcher.take();
+                if (page == null) {
+                    return false;
+                }
+                nextResults.addAll(page);
+            }
+            return true;
+        }
+
+        /**
+         * Stops loading pages in the background, if prefetching.
+         */
+        @Override
+        public void close() {
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
         }
 
         @Override
@@ -271,7 +329,7 @@ public abstract class PaginatedList<T> implements List<T> {
                  */
                 if (iterationOnly
                         || allResults.size() == allResultsCopy.size()) {
-                    if (!nextResultsAvailable()) {
+                    if (!nextPageAvailable()) {
                         throw new NoSuchElementException();
                     }
                     /* Clear previous results if it's in ITERATION_ONLY mode */
@@ -309,11 +367,33 @@ public abstract class PaginatedList<T> implements List<T> {
 
     }
 
+    /**
+     * Loads the pages of the list for a prefetcher. From the moment the
+     * prefetcher is started, only it calls fetchNextPage() and
+     * atEndOfResults().
+     */
+    private class ListPager implements PagePrefetcher.Pager<List<T>> {
+        @Override
+        public List<T> first() {
+            return fetchNextPage();
+        }
+
+        @Override
+        public List<T> next(List<T> previous) {
+            return fetchNextPage();
+        }
+
+        @Override
+        public boolean hasNext(List<T> page) {
+            return !atEndOfResults();
+        }
+    }
+
     /**
      * Returns whether the collection is empty. At most one (non-empty) page of
      * results is loaded to make the check.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or PREFETCH mode.
      * </p>
      */
     @Override
@@ -327,7 +407,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * Returns the Nth element of the list. Results are loaded until N elements
      * are present, if necessary.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or PREFETCH mode.
      * </p>
      */
     @Override
@@ -346,7 +426,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * loaded and checked incrementally until a match is found or the end of the
      * result set is reached.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or PREFETCH mode.
      * </p>
      */
     @Override
@@ -370,7 +450,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * Returns a sub-list in the range specified, loading more results as
      * necessary.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or PREFETCH mode.
      * </p>
      */
     @Override
@@ -388,7 +468,7 @@ public abstract class PaginatedList<T> implements List<T> {
      * Returns the first index of the object given in the list. Additional
      * results are loaded incrementally as necessary.
      * <p>
-     * Not supported in ITERATION_ONLY mode.
+     * Not supported in ITERATION_ONLY or PREFETCH mode.
      * </p>
      */
     @Override
@@ -505,9 +585,9 @@ public abstract class PaginatedList<T> implements List<T> {
     }
 
     void checkUnsupportedOperationForIterationOnlyMode(String methodSignature) {
-        if (this.paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY) {
-            throw new UnsupportedOperationException(methodSignature
-                    + ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE);
+        if (isIterationOnly()) {
+            throw new UnsupportedOperationException(methodSignature + String.format(
+                    ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE, paginationLoadingStrategy));
         }
     };
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.BatchLoadTask.PageHandler;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.BatchLoadTask.PendingKey;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.BatchLoadCallback;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The batching and concurrency of the loads are covered by
+ * {@link BatchPipelineTest}; these tests make one request at a time.
+ */
+public class BatchLoadTaskTest {
+
+    @Test
+    public void testKeysAreRequestedInFullBatches() {
+        StubClient client = new StubClient();
+        List<String> loaded = new ArrayList<String>();
+
+        new BatchLoadTask(client, 1, true, null).load(keys(250).iterator(), collect(loaded));
+
+        assertEquals(250, loaded.size());
+        assertEquals("[100, 100, 50]", sizes(client.requests).toString());
+        assertEquals("item100", client.requests.get(1).get(0));
+        assertTrue(client.consistentReads);
+    }
+
+    @Test
+    public void testUnprocessedKeysAreRetriedOnTheirOwn() {
+        StubClient client = new StubClient();
+        client.unprocessed = 10;
+        List<String> loaded = new ArrayList<String>();
+
+        new BatchLoadTask(client, 1, false, null).load(keys(150).iterator(), collect(loaded));
+
+        assertEquals(150, new HashSet<String>(loaded).size());
+        assertEquals(150, loaded.size());
+        assertEquals("[100, 10, 50]", sizes(client.requests).toString());
+        assertEquals(client.requests.get(0).subList(0, 10), client.requests.get(1));
+    }
+
+    @Test
+    public void testMapperHandsObjectsToCallback() {
+        StubClient client = new StubClient();
+        DynamoDBMapper mapper = new DynamoDBMapper(client);
+        List<Object> keyObjects = new ArrayList<Object>();
+        for (int i = 0; i < 120; i++) {
+            Item item = new Item();
+            item.setId("item" + i);
+            keyObjects.add(item);
+        }
+        final List<String> tableNames = new ArrayList<String>();
+        final List<Object> loaded = new ArrayList<Object>();
+
+        mapper.batchLoad(keyObjects, 1, null, new BatchLoadCallback() {
+            @Override
+            public void onItemsLoaded(String tableName, List<Object> items) {
+                tableNames.add(tableName);
+                loaded.addAll(items);
+            }
+        });
+
+        assertEquals("[table, table]", tableNames.toString());
+        assertEquals(120, loaded.size());
+        assertEquals(Item.class, loaded.get(0).getClass());
+    }
+
+    private static List<PendingKey> keys(int count) {
+        List<PendingKey> keys = new ArrayList<PendingKey>();
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+            key.put("id", new AttributeValue("item" + i));
+            keys.add(new PendingKey("table", key));
+        }
+        return keys;
+    }
+
+    private static PageHandler collect(final List<String> loaded) {
+        return new PageHandler() {
+            @Override
+            public void onPage(String tableName, List<Map<String, AttributeValue>> items) {
+                for (Map<String, AttributeValue> item : items) {
+                    loaded.add(item.get("id").getS());
+                }
+            }
+        };
+    }
+
+    private static List<Integer> sizes(List<List<String>> requests) {
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (List<String> request : requests) {
+            sizes.add(request.size());
+        }
+        return sizes;
+    }
+
+    @DynamoDBTable(tableName = "table")
+    public static class Item {
+        private String id;
+
+        @DynamoDBHashKey
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Records the ids of each request and returns each key as its item,
+     * except the first keys of the first request, which are left
+     * unprocessed.
+     */
+    private static class StubClient extends AmazonDynamoDBClient {
+        private final List<List<String>> requests = new ArrayList<List<String>>();
+        private int unprocessed;
+        private boolean consistentReads;
+
+        StubClient() {
+            super(new AnonymousAWSCredentials());
+        }
+
+        @Override
+        public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+            KeysAndAttributes keysAndAttributes = request.getRequestItems().get("table");
+            consistentReads = Boolean.TRUE.equals(keysAndAttributes.getConsistentRead());
+            List<Map<String, AttributeValue>> keys = keysAndAttributes.getKeys();
+            List<String> ids = new ArrayList<String>();
+            for (Map<String, AttributeValue> key : keys) {
+                ids.add(key.get("id").getS());
+            }
+            requests.add(ids);
+
+            List<Map<String, AttributeValue>> items =
+                    new ArrayList<Map<String, AttributeValue>>(keys);
+            Map<String, KeysAndAttributes> unprocessedKeys =
+                    new HashMap<String, KeysAndAttributes>();
+            if (unprocessed > 0) {
+                List<Map<String, AttributeValue>> unprocessedList =
+                        new ArrayList<Map<String, AttributeValue>>(keys.subList(0, unprocessed));
+                items.removeAll(unprocessedList);
+                unprocessedKeys.put("table", new KeysAndAttributes().withKeys(unprocessedList));
+                unprocessed = 0;
+            }
+
+            Map<String, List<Map<String, AttributeValue>>> responses =
+                    new HashMap<String, List<Map<String, AttributeValue>>>();
+            responses.put("table", items);
+            return new BatchGetItemResult().withResponses(responses)
+                    .withUnprocessedKeys(unprocessedKeys);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchPipelineTest {
+
+    @Test
+    public void testRetriesAreSentFirstInBatchesOfTheirOwn() {
+        final List<List<Integer>> batches = new ArrayList<List<Integer>>();
+        new BatchPipeline<Integer, List<Integer>>(1, 3, "test") {
+            private boolean retried;
+
+            @Override
+            List<Integer> send(List<Integer> batch) {
+                batches.add(new ArrayList<Integer>(batch));
+                return batch;
+            }
+
+            @Override
+            List<Integer> completed(List<Integer> batch) {
+                if (retried) {
+                    return Collections.emptyList();
+                }
+                retried = true;
+                return batch.subList(1, batch.size());
+            }
+        }.run(Arrays.asList(1, 2, 3, 4, 5).iterator());
+
+        assertEquals("[[1, 2, 3], [2, 3], [4, 5]]", batches.toString());
+    }
+
+    @Test
+    public void testBatchesInFlightAreBounded() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger sent = new AtomicInteger();
+        List<Integer> elements = new ArrayList<Integer>();
+        for (int i = 0; i < 40; i++) {
+            elements.add(i);
+        }
+
+        new BatchPipeline<Integer, Integer>(3, 2, "test") {
+            @Override
+            Integer send(List<Integer> batch) {
+                int current = inFlight.incrementAndGet();
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return batch.size();
+            }
+
+            @Override
+            List<Integer> completed(Integer size) {
+                sent.addAndGet(size);
+                return Collections.emptyList();
+            }
+        }.run(elements.iterator());
+
+        assertEquals(40, sent.get());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testFailureOfABatchIsThrownToTheCaller() {
+        final AmazonClientException failure = new AmazonClientException("failed");
+        try {
+            new BatchPipeline<Integer, Integer>(2, 1, "test") {
+                @Override
+                Integer send(List<Integer> batch) {
+                    throw failure;
+                }
+
+                @Override
+                List<Integer> completed(Integer outcome) {
+                    return Collections.emptyList();
+                }
+            }.run(Arrays.asList(1, 2, 3).iterator());
+            fail("Expected AmazonClientException");
+        } catch (AmazonClientException expected) {
+            assertSame(failure, expected);
+        }
+    }
+}
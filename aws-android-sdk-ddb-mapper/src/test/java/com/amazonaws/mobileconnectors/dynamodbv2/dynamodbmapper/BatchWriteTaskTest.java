@@ -0,0 +1,149 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.BatchWriteTask.PendingWrite;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.BatchWriteResult;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The batching and concurrency of the writes are covered by
+ * {@link BatchPipelineTest}; these tests make one request at a time.
+ */
+public class BatchWriteTaskTest {
+
+    @Test
+    public void testWritesAreSentInFullBatches() {
+        StubClient client = new StubClient();
+
+        BatchWriteResult result = new BatchWriteTask(client, 1).write(writes(60).iterator());
+
+        assertTrue(result.getFailedBatches().isEmpty());
+        assertEquals(60, result.getItemsWritten());
+        assertEquals(3, result.getRequestCount());
+        assertEquals("[25, 25, 10]", sizes(client.requests).toString());
+        assertEquals("item25", client.requests.get(1).get(0));
+    }
+
+    @Test
+    public void testUnprocessedItemsAreRetriedOnTheirOwn() {
+        StubClient client = new StubClient();
+        client.unprocessed = 5;
+
+        BatchWriteResult result = new BatchWriteTask(client, 1).write(writes(30).iterator());
+
+        assertTrue(result.getFailedBatches().isEmpty());
+        assertEquals(30, result.getItemsWritten());
+        assertEquals(5, result.getRetriedItemCount());
+        assertEquals("[25, 5, 5]", sizes(client.requests).toString());
+        assertEquals(client.requests.get(0).subList(0, 5), client.requests.get(1));
+        assertEquals("item25", client.requests.get(2).get(0));
+    }
+
+    @Test
+    public void testThrottledBatchFails() {
+        StubClient client = new StubClient();
+        AmazonServiceException throttled = new AmazonServiceException("throttled");
+        throttled.setErrorCode("ProvisionedThroughputExceededException");
+        client.failure = throttled;
+
+        BatchWriteResult result = new BatchWriteTask(client, 1).write(writes(30).iterator());
+
+        assertEquals(2, result.getFailedBatches().size());
+        assertEquals(2, result.getThrottledRequestCount());
+        assertEquals(0, result.getItemsWritten());
+        assertSame(throttled, result.getFailedBatches().get(0).getException());
+        int failedItems = 0;
+        for (FailedBatch failedBatch : result.getFailedBatches()) {
+            failedItems += failedBatch.getUnprocessedItems().get("table").size();
+        }
+        assertEquals(30, failedItems);
+    }
+
+    private static List<PendingWrite> writes(int count) {
+        List<PendingWrite> writes = new ArrayList<PendingWrite>();
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+            item.put("id", new AttributeValue("item" + i));
+            writes.add(new PendingWrite("table",
+                    new WriteRequest().withPutRequest(new PutRequest().withItem(item))));
+        }
+        return writes;
+    }
+
+    private static List<Integer> sizes(List<List<String>> requests) {
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (List<String> request : requests) {
+            sizes.add(request.size());
+        }
+        return sizes;
+    }
+
+    /**
+     * Records the ids of each request, and leaves the first items of the
+     * first request unprocessed.
+     */
+    private static class StubClient extends AmazonDynamoDBClient {
+        private final List<List<String>> requests = new ArrayList<List<String>>();
+        private int unprocessed;
+        private AmazonServiceException failure;
+
+        StubClient() {
+            super(new AnonymousAWSCredentials());
+        }
+
+        @Override
+        public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+            List<WriteRequest> writeRequests = request.getRequestItems().get("table");
+            List<String> ids = new ArrayList<String>();
+            for (WriteRequest writeRequest : writeRequests) {
+                ids.add(writeRequest.getPutRequest().getItem().get("id").getS());
+            }
+            requests.add(ids);
+            if (failure != null) {
+                throw failure;
+            }
+
+            Map<String, List<WriteRequest>> unprocessedItems =
+                    new HashMap<String, List<WriteRequest>>();
+            if (unprocessed > 0) {
+                unprocessedItems.put("table", new ArrayList<WriteRequest>(
+                        writeRequests.subList(0, unprocessed)));
+                unprocessed = 0;
+            }
+            return new BatchWriteItemResult().withUnprocessedItems(unprocessedItems);
+        }
+    }
+}
@@ -161,6 +161,27 @@ public class DynamoDBMapperTest {
         EasyMock.verify(mockClient);
     }
 
+    @Test
+    public void testBatchSaveConvertsEveryObjectBeforeWriting() {
+        List<Object> objectsToSave = new ArrayList<Object>();
+        for (int i = 0; i < 2 * DynamoDBMapper.MAX_ITEMS_PER_BATCH; i++) {
+            objectsToSave.add(new MockTwoValuePlusVersionClass("PrimaryKey" + i, "Value1",
+                    "Value2"));
+        }
+        // Not annotated with DynamoDBTable
+        objectsToSave.add(new Object());
+        EasyMock.reset(mockClient);
+        EasyMock.replay(mockClient);
+
+        try {
+            mapper.batchSave(objectsToSave);
+            fail("Expected DynamoDBMappingException");
+        } catch (DynamoDBMappingException expected) {
+            // No batch was written before the object failed to convert
+        }
+        EasyMock.verify(mockClient);
+    }
+
     @Test
     public void testBatchLoadRetiresForUnprocessedItems() {
         List<Object> itemsToGet = new ArrayList<Object>();
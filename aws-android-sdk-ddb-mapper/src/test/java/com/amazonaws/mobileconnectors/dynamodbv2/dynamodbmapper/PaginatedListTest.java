@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public class PaginatedListTest {
+
+    @Test
+    public void testPrefetchReturnsAllPagesInOrder() {
+        StubList list = new StubList(PaginationLoadingStrategy.PREFETCH,
+                Arrays.asList("a", "b"),
+                Collections.<String> emptyList(),
+                Arrays.asList("c"),
+                Arrays.asList("d", "e"));
+
+        List<String> items = new ArrayList<String>();
+        for (String item : list) {
+            items.add(item);
+        }
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), items);
+        assertTrue(list.allResults.size() <= 2);
+    }
+
+    @Test
+    public void testPrefetchLoadsAheadOfTheCaller() throws InterruptedException {
+        StubList list = new StubList(PaginationLoadingStrategy.PREFETCH,
+                Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c"),
+                Arrays.asList("d"), Arrays.asList("e"));
+
+        Iterator<String> iterator = list.iterator();
+        assertEquals("a", iterator.next());
+        // one page waiting for the caller, and one waiting for room
+        assertSettlesAt(2, list);
+
+        assertEquals("b", iterator.next());
+        assertSettlesAt(3, list);
+    }
+
+    @Test
+    public void testPrefetchFailureIsThrownToTheCaller() {
+        AmazonServiceException failure = new AmazonServiceException("failed");
+        StubList list = new StubList(PaginationLoadingStrategy.PREFETCH,
+                Arrays.asList("a"), Arrays.asList("b"));
+        list.failure = failure;
+
+        Iterator<String> iterator = list.iterator();
+        assertEquals("a", iterator.next());
+        try {
+            iterator.hasNext();
+            fail("Expected AmazonServiceException");
+        } catch (AmazonServiceException expected) {
+            assertSame(failure, expected);
+        }
+    }
+
+    @Test
+    public void testPrefetchOnlySupportsIteration() {
+        StubList list = new StubList(PaginationLoadingStrategy.PREFETCH,
+                Arrays.asList("a"), Arrays.asList("b"));
+
+        try {
+            list.size();
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        assertTrue(list.iterator().hasNext());
+        try {
+            list.iterator();
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testClosingThePrefetchIteratorStopsLoading() throws Exception {
+        StubList list = new StubList(PaginationLoadingStrategy.PREFETCH,
+                Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c"),
+                Arrays.asList("d"), Arrays.asList("e"));
+
+        Iterator<String> iterator = list.iterator();
+        assertEquals("a", iterator.next());
+        ((Closeable) iterator).close();
+        Thread.sleep(200);
+        int pagesFetched = list.pagesFetched;
+        Thread.sleep(200);
+        assertEquals(pagesFetched, list.pagesFetched);
+        assertTrue(pagesFetched < 4);
+        try {
+            iterator.hasNext();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testPrefetchWithSinglePage() {
+        StubList list = new StubList(PaginationLoadingStrategy.PREFETCH, Arrays.asList("a"));
+
+        Iterator<String> iterator = list.iterator();
+        assertEquals("a", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(0, list.pagesFetched);
+    }
+
+    /**
+     * Waits up to a couple of seconds for the list to fetch the expected
+     * number of pages, then a little longer to check that it goes no further.
+     */
+    private static void assertSettlesAt(int expectedPages, StubList list)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (list.pagesFetched < expectedPages && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(expectedPages, list.pagesFetched);
+    }
+
+    /**
+     * Serves the given pages, the first one as the initial results.
+     */
+    private static class StubList extends PaginatedList<String> {
+        private final List<List<String>> pages;
+        private volatile int pagesFetched;
+        private volatile AmazonServiceException failure;
+
+        StubList(PaginationLoadingStrategy strategy, List<String>... pages) {
+            super(null, String.class, null, strategy);
+            this.pages = new ArrayList<List<String>>(Arrays.asList(pages));
+            allResults.addAll(this.pages.remove(0));
+        }
+
+        @Override
+        protected boolean atEndOfResults() {
+            return pages.isEmpty();
+        }
+
+        @Override
+        protected List<String> fetchNextPage() {
+            if (failure != null) {
+                throw failure;
+            }
+            pagesFetched++;
+            return pages.remove(0);
+        }
+    }
+}
@@ -16,11 +16,13 @@
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -93,6 +95,38 @@ public class PojoReflectionTest {
         assertEquals("autogeneratedRangeKey", reflector.getPrimaryRangeKeyName(clazz));
     }
 
+    /**
+     * Tests that threads reflecting the same class share a single model.
+     */
+    @Test
+    public void testConcurrentReflection() throws InterruptedException {
+        final DynamoDBReflector sharedReflector = new DynamoDBReflector();
+        final Collection<?>[] getters = new Collection<?>[8];
+        Thread[] threads = new Thread[getters.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    getters[index] = sharedReflector
+                            .getRelevantGetters(PojoWithMixedAnnotations.class);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Collection<Method> model =
+                sharedReflector.getRelevantGetters(PojoWithMixedAnnotations.class);
+        for (Collection<?> result : getters) {
+            assertSame(model, result);
+        }
+        assertEquals(2, sharedReflector.getPrimaryKeyGetters(PojoWithMixedAnnotations.class)
+                .size());
+    }
+
     /**
      * A POJO model that uses getter annotations.
      */
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StandardItemConverterTest {
+
+    private static final ItemConverter CONVERTER = ConversionSchemas.V2
+            .getConverter(new ConversionSchema.Dependencies());
+
+    @Test
+    public void testRoundTrip() {
+        Item item = new Item();
+        item.setId("id");
+        item.setCount(3);
+        item.setTags(Arrays.asList("a", "b"));
+        Child child = new Child();
+        child.setName("child");
+        item.setChild(child);
+
+        Map<String, AttributeValue> values = CONVERTER.convert(item);
+        assertEquals("id", values.get("hash").getS());
+        assertEquals("3", values.get("count").getN());
+        assertEquals(2, values.get("tags").getL().size());
+        assertEquals("child", values.get("child").getM().get("name").getS());
+        assertEquals("read only", values.get("readOnly").getS());
+        assertFalse(values.containsKey("unsupported"));
+
+        values.remove("readOnly");
+
+        for (int i = 0; i < 2; i++) {
+            Item result = CONVERTER.unconvert(Item.class, values);
+            assertEquals("id", result.getId());
+            assertEquals(Integer.valueOf(3), result.getCount());
+            assertEquals(Arrays.asList("a", "b"), result.getTags());
+            assertEquals("child", result.getChild().getName());
+        }
+    }
+
+    @Test
+    public void testAttributeWithoutSetterFailsOnlyWhenUnconverted() {
+        Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+        values.put("hash", new AttributeValue("id"));
+        assertEquals("id", CONVERTER.unconvert(Item.class, values).getId());
+
+        values.put("readOnly", new AttributeValue("value"));
+        try {
+            CONVERTER.unconvert(Item.class, values);
+            fail("Expected DynamoDBMappingException");
+        } catch (DynamoDBMappingException expected) {
+        }
+    }
+
+    @Test
+    public void testUnsupportedAttributeFailsOnlyWhenConverted() {
+        Item item = new Item();
+        item.setUnsupported(new Object());
+        try {
+            CONVERTER.convert(item);
+            fail("Expected DynamoDBMappingException");
+        } catch (DynamoDBMappingException expected) {
+        }
+    }
+
+    @Test
+    public void testMapperReusesConverter() {
+        DynamoDBMapper mapper = new DynamoDBMapper(null);
+        DynamoDBMapperConfig config = DynamoDBMapperConfig.DEFAULT;
+        assertSame(mapper.getConverter(config), mapper.getConverter(config));
+    }
+
+    @Test
+    public void testMapperDoesNotKeepConvertersOfOtherSchemas() {
+        DynamoDBMapper mapper = new DynamoDBMapper(null);
+        ConversionSchema schema = new ConversionSchema() {
+            @Override
+            public ItemConverter getConverter(Dependencies dependencies) {
+                return ConversionSchemas.V2.getConverter(dependencies);
+            }
+        };
+        DynamoDBMapperConfig config = new DynamoDBMapperConfig(schema);
+        assertNotSame(mapper.getConverter(config), mapper.getConverter(config));
+    }
+
+    @DynamoDBTable(tableName = "items")
+    public static class Item {
+        private String id;
+        private Integer count;
+        private List<String> tags;
+        private Child child;
+        private Object unsupported;
+
+        @DynamoDBHashKey(attributeName = "hash")
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public Child getChild() {
+            return child;
+        }
+
+        public void setChild(Child child) {
+            this.child = child;
+        }
+
+        public Object getUnsupported() {
+            return unsupported;
+        }
+
+        public void setUnsupported(Object unsupported) {
+            this.unsupported = unsupported;
+        }
+
+        public String getReadOnly() {
+            return "read only";
+        }
+    }
+
+    @DynamoDBDocument
+    public static class Child {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
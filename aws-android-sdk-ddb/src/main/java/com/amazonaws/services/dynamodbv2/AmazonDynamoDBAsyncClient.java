@@ -16,7 +16,6 @@ package com.amazonaws.services.dynamodbv2;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
@@ -28,6 +27,7 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 
 import com.amazonaws.services.dynamodbv2.model.*;
+import com.amazonaws.util.ExecutorServices;
 
 /**
  * Asynchronous client for accessing AmazonDynamoDBv2.
@@ -271,7 +271,7 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     @Deprecated
     public AmazonDynamoDBAsyncClient(ClientConfiguration clientConfiguration) {
-        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(new DefaultAWSCredentialsProviderChain(), clientConfiguration, ExecutorServices.newFixedThreadPool(clientConfiguration.getMaxConnections()));
     }
 
     /**
@@ -289,7 +289,7 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      *                       when authenticating with AWS services.
      */
     public AmazonDynamoDBAsyncClient(AWSCredentials awsCredentials) {
-        this(awsCredentials, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentials, ExecutorServices.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -356,7 +356,7 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      *            to authenticate requests with AWS services.
      */
     public AmazonDynamoDBAsyncClient(AWSCredentialsProvider awsCredentialsProvider) {
-        this(awsCredentialsProvider, Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
+        this(awsCredentialsProvider, ExecutorServices.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
     }
 
     /**
@@ -399,7 +399,7 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient
      */
     public AmazonDynamoDBAsyncClient(AWSCredentialsProvider awsCredentialsProvider,
                 ClientConfiguration clientConfiguration) {
-        this(awsCredentialsProvider, clientConfiguration, Executors.newFixedThreadPool(clientConfiguration.getMaxConnections()));
+        this(awsCredentialsProvider, clientConfiguration, ExecutorServices.newFixedThreadPool(clientConfiguration.getMaxConnections()));
     }
 
     /**
@@ -23,7 +23,12 @@ import com.amazonaws.util.StringUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * An abstract class for Amazon Kinesis recorders. It manages local file store
@@ -50,6 +55,11 @@ public abstract class AbstractKinesisRecorder {
     protected KinesisRecorderConfig config;
     protected FileRecordStore recordStore;
 
+    /** Number of records sent by the last call to submitAllRecords() */
+    private volatile int lastSubmittedRecordCount;
+    /** Duration in milliseconds of the last call to submitAllRecords() */
+    private volatile long lastSubmissionTimeMillis;
+
     /**
      * Gets the sender to send saved records.
      * 
@@ -108,6 +118,10 @@ public abstract class AbstractKinesisRecorder {
      * invalid) will be deleted. Note: Since KinesisRecorder uses synchronous
      * methods to make calls to Amazon Kinesis, do not call submitAll() on the
      * main thread of your application.
+     * <p>
+     * Up to {@link KinesisRecorderConfig#getMaxConcurrentBatches()} batches
+     * are sent in parallel. Only the records rejected in a partially failed
+     * batch are kept for a later retry.
      *
      * @throws AmazonClientException Thrown if there was an unrecoverable error
      *             during submission. Note: If the request appears to be
@@ -117,14 +131,27 @@ public abstract class AbstractKinesisRecorder {
     public synchronized void submitAllRecords() {
         RecordSender sender = getRecordSender();
         RecordIterator iterator = recordStore.iterator();
+        int maxConcurrency = config == null ? 1 : config.getMaxConcurrentBatches();
+        int concurrency = 1;
+        ExecutorService executor = null;
+        List<Batch> batches = new ArrayList<Batch>(maxConcurrency);
         List<byte[]> data = new ArrayList<byte[]>(MAX_RECORDS_PER_BATCH);
         int retry = 0;
         int count = 0;
+        long startTime = System.currentTimeMillis();
         try {
             while (iterator.hasNext() && retry < 3) {
-                String streamName = nextBatch(iterator, data, MAX_RECORDS_PER_BATCH,
-                        MAX_BATCH_RECORDS_SIZE_BYTES);
-                if (streamName == null || data.isEmpty()) {
+                // read up to as many batches as are allowed in flight
+                batches.clear();
+                while (batches.size() < concurrency) {
+                    String streamName = nextBatch(iterator, data, MAX_RECORDS_PER_BATCH,
+                            MAX_BATCH_RECORDS_SIZE_BYTES);
+                    if (streamName == null || data.isEmpty()) {
+                        break;
+                    }
+                    batches.add(new Batch(streamName, new ArrayList<byte[]>(data)));
+                }
+                if (batches.isEmpty()) {
                     break;
                 }
 
@@ -135,38 +162,95 @@ public abstract class AbstractKinesisRecorder {
                 }
 
                 try {
-                    List<byte[]> failures = sender.sendBatch(streamName, data);
-                    int successCount = data.size() - failures.size();
-                    count += successCount;
-                    if (successCount == 0) {
-                        // no record went through, increase retry count.
-                        retry++;
+                    if (batches.size() == 1) {
+                        batches.get(0).send(sender);
+                    } else {
+                        if (executor == null) {
+                            executor = Executors.newFixedThreadPool(maxConcurrency);
+                        }
+                        sendConcurrently(executor, sender, batches);
                     }
-                    if (!failures.isEmpty()) {
-                        for (byte[] bytes : failures) {
-                            saveRecord(bytes, streamName);
+                } catch (RuntimeException e) {
+                    // The records have already been removed from the file.
+                    // Keep the ones of the batches without a definite
+                    // outcome, at the risk of sending some of them twice,
+                    // along with the ones that can be retried.
+                    for (Batch batch : batches) {
+                        List<byte[]> unsent = batch.data;
+                        if (batch.done && batch.error == null) {
+                            unsent = batch.failures;
+                        } else if (batch.done && !sender.isRecoverable(batch.error)) {
+                            unsent = Collections.emptyList();
+                        }
+                        for (byte[] bytes : unsent) {
+                            saveRecord(bytes, batch.streamName);
                         }
                     }
-                } catch (AmazonClientException ace) {
-                    if (sender.isRecoverable(ace)) {
-                        for (byte[] bytes : data) {
-                            saveRecord(bytes, streamName);
+                    throw e;
+                }
+
+                AmazonClientException firstError = null;
+                boolean rejected = false;
+                for (Batch batch : batches) {
+                    if (batch.error != null) {
+                        rejected = true;
+                        if (firstError == null) {
+                            firstError = batch.error;
                         }
-                        Log.e(TAG,
-                                "ServiceException in submit all, the values of the data inside the requests appears valid.  The request will be kept",
-                                ace);
-                    } else {
-                        // We have reason to believe the values in the request
-                        // is invalid and cannot be sent or recovered.
-                        Log.e(TAG,
-                                "ServiceException in submit all, the last request is presumed to be the cause and will be dropped",
-                                ace);
+                        if (sender.isRecoverable(batch.error)) {
+                            for (byte[] bytes : batch.data) {
+                                saveRecord(bytes, batch.streamName);
+                            }
+                            Log.e(TAG,
+                                    "ServiceException in submit all, the values of the data inside the requests appears valid.  The request will be kept",
+                                    batch.error);
+                        } else {
+                            // We have reason to believe the values in the
+                            // request is invalid and cannot be sent or
+                            // recovered.
+                            Log.e(TAG,
+                                    "ServiceException in submit all, the last request is presumed to be the cause and will be dropped",
+                                    batch.error);
+                        }
+                        continue;
                     }
-                    throw ace;
+
+                    int successCount = batch.data.size() - batch.failures.size();
+                    count += successCount;
+                    if (successCount == 0) {
+                        // no record went through, likely throttled
+                        rejected = true;
+                    }
+                    // only the failed entries are saved for a later retry
+                    for (byte[] bytes : batch.failures) {
+                        saveRecord(bytes, batch.streamName);
+                    }
+                }
+                if (firstError != null) {
+                    throw firstError;
+                }
+
+                // additive increase, multiplicative decrease of the number of
+                // batches in flight
+                if (rejected) {
+                    retry++;
+                    concurrency = Math.max(1, concurrency / 2);
+                } else if (concurrency < maxConcurrency) {
+                    concurrency++;
                 }
             }
         } finally {
-            Log.d(TAG, String.format("submitAllRecords sent %d records", count));
+            if (executor != null) {
+                executor.shutdown();
+            }
+            long elapsed = System.currentTimeMillis() - startTime;
+            lastSubmittedRecordCount = count;
+            lastSubmissionTimeMillis = elapsed;
+            Log.d(TAG, String.format(
+                    "submitAllRecords sent %d records in %d ms, %d bytes remain on disk", count,
+                    elapsed, recordStore.getFileSize()));
+            // release the record file until the next record is saved
+            recordStore.close();
             try {
                 iterator.close();
             } catch (IOException e) {
@@ -175,6 +259,72 @@ public abstract class AbstractKinesisRecorder {
         }
     }
 
+    /**
+     * Sends the given batches in parallel and waits for all of them to
+     * complete. The outcome of each batch is recorded in the batch itself.
+     * If a batch fails unexpectedly, the other ones are still waited for
+     * before the failure is thrown. If the calling thread is interrupted, the
+     * batches not started yet are cancelled.
+     */
+    private void sendConcurrently(ExecutorService executor, final RecordSender sender,
+            List<Batch> batches) {
+        List<Future<?>> futures = new ArrayList<Future<?>>(batches.size());
+        for (final Batch batch : batches) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    batch.send(sender);
+                }
+            }));
+        }
+        AmazonClientException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<?> other : futures) {
+                    other.cancel(false);
+                }
+                throw new AmazonClientException("Interrupted while submitting records", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new AmazonClientException("Failed to submit records",
+                            e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A batch of records of the same stream and the outcome of sending it.
+     */
+    private static final class Batch {
+        final String streamName;
+        final List<byte[]> data;
+        List<byte[]> failures;
+        AmazonClientException error;
+        /** Whether the batch has been accepted or rejected by the service */
+        volatile boolean done;
+
+        Batch(String streamName, List<byte[]> data) {
+            this.streamName = streamName;
+            this.data = data;
+        }
+
+        void send(RecordSender sender) {
+            try {
+                failures = sender.sendBatch(streamName, data);
+            } catch (AmazonClientException ace) {
+                error = ace;
+            }
+            done = true;
+        }
+    }
+
     /**
      * Reads a batch of records belong to the same stream into a list. If data
      * is read successfully, the stream name is returned.
@@ -223,6 +373,27 @@ public abstract class AbstractKinesisRecorder {
         return lastStreamName;
     }
 
+    /**
+     * Returns the number of records sent by the last call to
+     * {@link #submitAllRecords()}, including a call that ended with an
+     * exception. Along with {@link #getLastSubmissionTimeMillis()}, it gives
+     * the throughput at which saved records are drained.
+     *
+     * @return the number of records accepted by the service
+     */
+    public int getLastSubmittedRecordCount() {
+        return lastSubmittedRecordCount;
+    }
+
+    /**
+     * Returns how long the last call to {@link #submitAllRecords()} took.
+     *
+     * @return the duration in milliseconds
+     */
+    public long getLastSubmissionTimeMillis() {
+        return lastSubmissionTimeMillis;
+    }
+
     /**
      * Returns the KinesisRecorderConfig this Kinesis Recorder is using. This is
      * either the config passed into the constructor or the default one if one
@@ -20,26 +20,35 @@ import android.util.Log;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.util.StringUtils;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The FileRecordStore is responsible for recording Kinesis PutRecordRequests to
  * the Android disk. Currently it stores each request as a JSON object
  * representing it's properties. One request per line.
+ * <p>
+ * The record file is kept open for appending between puts until
+ * {@link #close()} is called, and read records are removed by byte offset:
+ * when every record has been read the file is simply truncated, otherwise
+ * only the unread tail is copied over.
  */
 class FileRecordStore {
     private static final String TAG = "FileRecordStore";
+    private static final byte[] NEW_LINE = new byte[] {
+            '\n'
+    };
+    private static final int BUFFER_SIZE = 8 * 1024;
     private final ReentrantLock accessLock = new ReentrantLock(true);
 
     /** The file the requests are stored in **/
@@ -51,6 +60,11 @@ class FileRecordStore {
     private final String recordFileName;
     private final long maxStorageSize;
 
+    /** Appending stream to the record file, kept open between puts **/
+    private OutputStream writer;
+    /** Size of the record file as seen through {@link #writer} **/
+    private long writtenSize;
+
     /**
      * Creates the FileRecordStore
      *
@@ -72,26 +86,41 @@ class FileRecordStore {
 
     public boolean put(final String record) throws IOException {
         boolean success = false;
-        BufferedWriter writer = null;
+        final byte[] bytes = record.getBytes(StringUtils.UTF8);
         accessLock.lock();
         try {
-            writer = tryInitializeWriter();
-            if (recordFile.length() + record.getBytes(StringUtils.UTF8).length <= maxStorageSize) {
-                writer.write(record);
-                writer.newLine();
+            tryInitializeWriter();
+            if (writtenSize + bytes.length <= maxStorageSize) {
+                writer.write(bytes);
+                writer.write(NEW_LINE);
                 writer.flush();
+                writtenSize += bytes.length + NEW_LINE.length;
                 success = true;
             }
+        } catch (IOException e) {
+            // the stream may be in an unknown state, reopen it on next put
+            closeWriter();
+            throw e;
         } finally {
-            if (writer != null) {
-                writer.close();
-            }
             accessLock.unlock();
         }
 
         return success;
     }
 
+    /**
+     * Closes the appending stream of the record file, releasing its file
+     * descriptor. The stream is reopened by the next put.
+     */
+    public void close() {
+        accessLock.lock();
+        try {
+            closeWriter();
+        } finally {
+            accessLock.unlock();
+        }
+    }
+
     public long getFileSize() {
         return recordFile == null ? 0 : recordFile.length();
     }
@@ -113,16 +142,38 @@ class FileRecordStore {
         }
     }
 
-    private BufferedWriter tryInitializeWriter() throws IOException {
-        BufferedWriter writer = null;
+    /**
+     * Makes sure {@link #writer} is an open appending stream of the current
+     * record file. Must be called with the access lock held.
+     */
+    private void tryInitializeWriter() throws IOException {
+        if (writer != null && recordFile != null && recordFile.exists()) {
+            return;
+        }
+        closeWriter();
         tryCreateRecordsFile();
-        OutputStream stream = fileManager.newOutputStream(recordFile, true);
-        writer = new BufferedWriter(new OutputStreamWriter(stream, StringUtils.UTF8));
+        writer = new BufferedOutputStream(fileManager.newOutputStream(recordFile, true),
+                BUFFER_SIZE);
+        writtenSize = recordFile.length();
+    }
 
-        return writer;
+    /**
+     * Closes {@link #writer} if it's open. Must be called with the access lock
+     * held, and before the record file is replaced or deleted.
+     */
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close record file", e);
+            }
+            writer = null;
+        }
     }
 
     private File deleteAllRecords() throws IOException {
+        closeWriter();
         File recordsDir = fileManager.createDirectory(
                 Constants.RECORDS_DIRECTORY);
 
@@ -133,8 +184,23 @@ class FileRecordStore {
         return recordFile;
     }
 
-    private File deleteReadRecords(final int lineNumber) throws IOException {
-        // Write all records after line number to a temporary file
+    private File deleteReadRecords(final long bytesRead) throws IOException {
+        if (bytesRead <= 0) {
+            return recordFile;
+        }
+        closeWriter();
+        if (!recordFile.exists()) {
+            return recordFile;
+        }
+
+        // Everything has been read, which is the common case after a
+        // successful submission. Truncate instead of copying.
+        if (bytesRead >= recordFile.length()) {
+            fileManager.newOutputStream(recordFile, false).close();
+            return recordFile;
+        }
+
+        // Copy the unread tail of the file to a temporary file
         File recordsDir = fileManager.createDirectory(
                 Constants.RECORDS_DIRECTORY);
 
@@ -148,31 +214,30 @@ class FileRecordStore {
         }
         tempRecordsFile = fileManager.createFile(tempFile);
 
-        if (tempRecordsFile != null && recordFile.exists() && tempRecordsFile.exists()) {
-            BufferedReader reader = null;
-            PrintWriter writer = null;
+        if (tempRecordsFile != null && tempRecordsFile.exists()) {
+            FileInputStream in = null;
+            FileOutputStream out = null;
             try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(recordFile),
-                        StringUtils.UTF8));
-                writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(
-                        tempRecordsFile, true), StringUtils.UTF8));
-
-                String line = null;
-                int currentLineNumber = 0;
-                while ((line = reader.readLine()) != null) {
-                    currentLineNumber++;
-                    if (currentLineNumber > lineNumber) {
-                        writer.println(line);
-                        writer.flush();
+                in = new FileInputStream(recordFile);
+                out = new FileOutputStream(tempRecordsFile, false);
+                FileChannel source = in.getChannel();
+                FileChannel target = out.getChannel();
+                long position = bytesRead;
+                long size = source.size();
+                while (position < size) {
+                    long transferred = source.transferTo(position, size - position, target);
+                    if (transferred <= 0) {
+                        break;
                     }
+                    position += transferred;
                 }
             } finally {
-                if (writer != null) {
-                    writer.close();
+                if (out != null) {
+                    out.close();
                 }
-                if (reader != null) {
+                if (in != null) {
                     try {
-                        reader.close();
+                        in.close();
                     } catch (IOException e) {
 
                     }
@@ -199,10 +264,15 @@ class FileRecordStore {
     }
 
     public class RecordIterator implements java.util.Iterator<String> {
-        int linesRead = 0;
+        /** Bytes of the record file consumed by {@link #next()} **/
+        long bytesRead = 0;
         String nextBuffer = null;
-        BufferedReader reader = null;
+        /** Bytes of the line held in {@link #nextBuffer} **/
+        int nextBufferLength = 0;
+        InputStream reader = null;
         boolean isEndOfFile = false;
+        private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream(256);
+        private int lastLineLength = 0;
 
         private boolean tryOpenReader() throws FileNotFoundException {
             if (reader != null) {
@@ -210,12 +280,22 @@ class FileRecordStore {
             }
 
             if (!isEndOfFile) {
-                InputStreamReader streamReader = null;
-                streamReader = new InputStreamReader(fileManager.newInputStream(recordFile),
-                        StringUtils.UTF8);
-
-                if (streamReader != null) {
-                    reader = new BufferedReader(streamReader);
+                InputStream stream = fileManager.newInputStream(recordFile);
+                if (stream != null) {
+                    reader = new BufferedInputStream(stream, BUFFER_SIZE);
+                    // skip what has been read but not removed yet
+                    long skipped = 0;
+                    try {
+                        while (skipped < bytesRead) {
+                            long n = reader.skip(bytesRead - skipped);
+                            if (n <= 0) {
+                                break;
+                            }
+                            skipped += n;
+                        }
+                    } catch (IOException e) {
+                        throw new AmazonClientException("IO Error", e);
+                    }
                     return true;
                 }
             }
@@ -229,6 +309,33 @@ class FileRecordStore {
             }
         }
 
+        /**
+         * Reads the next line of the record file, or null at the end of the
+         * file. The number of bytes consumed, including the line terminator,
+         * is left in {@link #lastLineLength}.
+         */
+        private String readLine() throws IOException {
+            lineBuffer.reset();
+            lastLineLength = 0;
+            int b;
+            while ((b = reader.read()) != -1) {
+                lastLineLength++;
+                if (b == '\n') {
+                    break;
+                }
+                lineBuffer.write(b);
+            }
+            if (lastLineLength == 0) {
+                return null;
+            }
+            String line = new String(lineBuffer.toByteArray(), StringUtils.UTF8);
+            // tolerate files written with a \r\n line separator
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            return line;
+        }
+
         @Override
         public boolean hasNext() {
             boolean hasNext = false;
@@ -247,7 +354,8 @@ class FileRecordStore {
                     boolean found = false;
                     while (!found) {
                         try {
-                            nextBuffer = reader.readLine();
+                            nextBuffer = readLine();
+                            nextBufferLength = lastLineLength;
                             found = true;
                         } catch (IOException e) {
                             nextBuffer = null;
@@ -282,8 +390,9 @@ class FileRecordStore {
             try {
                 if (nextBuffer != null) {
                     next = nextBuffer;
-                    linesRead++;
+                    bytesRead += nextBufferLength;
                     nextBuffer = null;
+                    nextBufferLength = 0;
                 } else {
                     if (!tryOpenReader()) {
                         return next;
@@ -291,7 +400,7 @@ class FileRecordStore {
                     boolean found = false;
                     while (!found) {
                         try {
-                            next = reader.readLine();
+                            next = readLine();
                             found = true;
                         } catch (IOException e) {
                             next = null;
@@ -299,7 +408,7 @@ class FileRecordStore {
                         }
                     }
                     if (next != null) {
-                        linesRead++;
+                        bytesRead += lastLineLength;
                     } else {
                         isEndOfFile = true;
                         tryCloseReader();
@@ -334,7 +443,7 @@ class FileRecordStore {
         public void removeReadRecords() throws IOException {
             accessLock.lock();
             try {
-                deleteReadRecords(linesRead);
+                deleteReadRecords(bytesRead);
                 resetReader();
             } finally {
                 accessLock.unlock();
@@ -353,8 +462,9 @@ class FileRecordStore {
 
         private void resetReader() throws IOException {
             tryCloseReader();
-            linesRead = 0;
+            bytesRead = 0;
             nextBuffer = null;
+            nextBufferLength = 0;
             isEndOfFile = false;
         }
 
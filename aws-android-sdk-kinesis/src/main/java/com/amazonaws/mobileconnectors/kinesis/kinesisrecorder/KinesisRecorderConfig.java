@@ -24,6 +24,7 @@ import com.amazonaws.ClientConfiguration;
 public class KinesisRecorderConfig {
 
     private long maxStorageSize = 1024 * 1024 * 5L;
+    private int maxConcurrentBatches = 1;
     private ClientConfiguration clientConfiguration;
 
     /**
@@ -56,6 +57,7 @@ public class KinesisRecorderConfig {
      */
     public KinesisRecorderConfig(KinesisRecorderConfig other) {
         this.maxStorageSize = other.getMaxStorageSize();
+        this.maxConcurrentBatches = other.getMaxConcurrentBatches();
         this.clientConfiguration = new ClientConfiguration(other.getClientConfiguration());
     }
 
@@ -79,6 +81,33 @@ public class KinesisRecorderConfig {
         return this.maxStorageSize;
     }
 
+    /**
+     * Sets the maximum number of batches that may be in flight at the same
+     * time when submitting saved records. The recorder starts with one batch
+     * and ramps up to this limit while requests succeed, backing off again
+     * when a batch is rejected entirely, e.g. due to throttling. The default
+     * is 1, i.e. batches are sent one after another.
+     *
+     * @param maxConcurrentBatches maximum number of concurrent batches, at
+     *            least 1
+     * @return This class for chaining
+     */
+    public KinesisRecorderConfig withMaxConcurrentBatches(int maxConcurrentBatches) {
+        if (maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("maxConcurrentBatches must be at least 1");
+        }
+        this.maxConcurrentBatches = maxConcurrentBatches;
+        return this;
+    }
+
+    /**
+     * @return The maximum number of batches that may be in flight at the same
+     *         time when submitting saved records.
+     */
+    public int getMaxConcurrentBatches() {
+        return this.maxConcurrentBatches;
+    }
+
     /**
      * Returns the client configuration the Kinesis Recorder will use when
      * making requests to Amazon Kinesis
@@ -276,6 +276,62 @@ public class AbstractKinesisRecorderTest {
         assertTrue("records removed", recorder.getDiskBytesUsed() > 0);
     }
 
+    @Test
+    public void testSubmitAllRecordsConcurrently() throws IOException {
+        KinesisRecorderConfig config = new KinesisRecorderConfig().withMaxConcurrentBatches(4);
+        FileRecordStore recordStore = new FileRecordStore(temp.newFolder(), RECORD_FILE_NAME,
+                config.getMaxStorageSize());
+        MockAbstractKinesisRecorder mockRecorder = new MockAbstractKinesisRecorder(recordStore,
+                config);
+        mockRecorder.setRecordSender(sender);
+
+        // 1000 records make 8 batches of at most 128 records
+        for (int i = 0; i < 1000; i++) {
+            mockRecorder.saveRecord(randomBytes(16), STREAM_NAME);
+        }
+        Mockito.when(sender.sendBatch(Mockito.anyString(), Mockito.anyListOf(byte[].class)))
+                .thenReturn(new ArrayList<byte[]>());
+        mockRecorder.submitAllRecords();
+        assertEquals("no records after submitAllRecords", 0, mockRecorder.getDiskBytesUsed());
+        Mockito.verify(sender, Mockito.times(8)).sendBatch(Mockito.anyString(),
+                Mockito.anyListOf(byte[].class));
+        assertEquals("records sent", 1000, mockRecorder.getLastSubmittedRecordCount());
+        assertTrue("elapsed time", mockRecorder.getLastSubmissionTimeMillis() >= 0);
+    }
+
+    @Test
+    public void testSubmitAllRecordsKeepsRecordsOnUnexpectedFailure() throws IOException {
+        KinesisRecorderConfig config = new KinesisRecorderConfig().withMaxConcurrentBatches(4);
+        FileRecordStore recordStore = new FileRecordStore(temp.newFolder(), RECORD_FILE_NAME,
+                config.getMaxStorageSize());
+        MockAbstractKinesisRecorder mockRecorder = new MockAbstractKinesisRecorder(recordStore,
+                config);
+        mockRecorder.setRecordSender(sender);
+
+        for (int i = 0; i < 1000; i++) {
+            mockRecorder.saveRecord(randomBytes(16), STREAM_NAME);
+        }
+        // the first round of one batch succeeds, the second one of two fails
+        Mockito.when(sender.sendBatch(Mockito.anyString(), Mockito.anyListOf(byte[].class)))
+                .thenReturn(new ArrayList<byte[]>())
+                .thenThrow(new IllegalStateException("unexpected"));
+        try {
+            mockRecorder.submitAllRecords();
+            fail("Expected an exception");
+        } catch (RuntimeException expected) {
+        }
+
+        RecordIterator iterator = recordStore.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        iterator.close();
+        assertEquals("records of the failed round kept", 1000 - 128, count);
+        assertEquals("records sent", 128, mockRecorder.getLastSubmittedRecordCount());
+    }
+
     private byte[] randomBytes(int length) {
         byte[] data = new byte[length];
         new Random().nextBytes(data);
@@ -33,6 +33,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.HashMap;
@@ -153,6 +154,55 @@ public class FileRecordStoreTest {
 
     }
 
+    @Test
+    public void testRemoveReadRecords_keepsUnreadRecordsAndLegacyLineSeparators()
+            throws IOException {
+        FileManager fileManager = new FileManager(TEST_DIRECTORY);
+        File recordsFile = new File(fileManager.createDirectory(Constants.RECORDS_DIRECTORY),
+                RECORDER_FILE_NAME);
+        OutputStream out = fileManager.newOutputStream(recordsFile, false);
+        out.write("1\r\n2\r\n".getBytes(StringUtils.UTF8));
+        out.close();
+
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        recordStore.put("3");
+
+        RecordIterator iter = recordStore.iterator();
+        assertEquals("1", iter.next());
+        assertEquals("2", iter.peek());
+        iter.removeReadRecords();
+        assertEquals(2, getNumberOfLinesInFile(fileManager));
+
+        // records put after removal are appended to the new file
+        recordStore.put("4");
+        iter = recordStore.iterator();
+        assertEquals("2", iter.next());
+        assertEquals("3", iter.next());
+        assertEquals("4", iter.next());
+        assertFalse(iter.hasNext());
+        iter.removeReadRecords();
+        assertEquals(0, recordsFile.length());
+        assertEquals(0, recordStore.getFileSize());
+    }
+
+    @Test
+    public void testClose_putReopensRecordFile() throws IOException {
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        recordStore.put("1");
+        recordStore.close();
+        recordStore.close();
+        recordStore.put("2");
+        recordStore.close();
+
+        RecordIterator iter = recordStore.iterator();
+        assertEquals("1", iter.next());
+        assertEquals("2", iter.next());
+        assertFalse(iter.hasNext());
+        iter.close();
+    }
+
     @Test
     public void
             testWhenRecordssFileIsMissingAndRecordssDirectoryIsReadOnly_error() throws IOException {
@@ -41,7 +41,6 @@ public final class AwsChunkedEncodingInputStream extends SdkInputStream {
     private static final String CHUNK_STRING_TO_SIGN_PREFIX = "AWS4-HMAC-SHA256-PAYLOAD";
     private static final String CHUNK_SIGNATURE_HEADER = ";chunk-signature=";
     private static final int SIGNATURE_LENGTH = 64;
-    private static final byte[] FINAL_CHUNK = new byte[0];
 
     private InputStream is = null;
     private final int maxBufferSize;
@@ -52,6 +51,21 @@ public final class AwsChunkedEncodingInputStream extends SdkInputStream {
     private String priorChunkSignature;
     private final AWS4Signer aws4Signer;
 
+    /** Hex encoded hash of the (empty) nonsig-extension of every chunk */
+    private final String nonsigExtensionHash;
+
+    /**
+     * Buffer the wrapped stream is read into, re-used for every chunk so that
+     * the payload is never held in memory more than one chunk at a time.
+     */
+    private byte[] chunkData;
+
+    /**
+     * Buffer holding the current signed chunk (header, data and trailer),
+     * re-used for every chunk once the previous one has been fully read.
+     */
+    private byte[] signedChunk;
+
     /** Iterator on the current chunk that has been signed */
     private ChunkContentIterator currentChunkIterator;
 
@@ -117,6 +131,7 @@ public final class AwsChunkedEncodingInputStream extends SdkInputStream {
         this.headerSignature = headerSignature;
         this.priorChunkSignature = headerSignature;
         this.aws4Signer = aws4Signer;
+        this.nonsigExtensionHash = BinaryUtils.toHex(aws4Signer.hash(""));
     }
 
     @Override
@@ -276,7 +291,9 @@ public final class AwsChunkedEncodingInputStream extends SdkInputStream {
      * @return Returns true if next chunk is the last empty chunk.
      */
     private boolean setUpNextChunk() throws IOException {
-        byte[] chunkData = new byte[DEFAULT_CHUNK_SIZE];
+        if (chunkData == null) {
+            chunkData = new byte[DEFAULT_CHUNK_SIZE];
+        }
         int chunkSizeInBytes = 0;
         while (chunkSizeInBytes < DEFAULT_CHUNK_SIZE) {
             /** Read from the buffer of the decoded stream */
@@ -297,27 +314,21 @@ public final class AwsChunkedEncodingInputStream extends SdkInputStream {
                     break;
             }
         }
-        if (chunkSizeInBytes == 0) {
-            byte[] signedFinalChunk = createSignedChunk(FINAL_CHUNK);
-            currentChunkIterator = new ChunkContentIterator(signedFinalChunk);
-            return true;
-        }
-        else {
-            if (chunkSizeInBytes < chunkData.length) {
-                byte[] temp = new byte[chunkSizeInBytes];
-                System.arraycopy(chunkData, 0, temp, 0, chunkSizeInBytes);
-                chunkData = temp;
-            }
-            byte[] signedChunkContent = createSignedChunk(chunkData);
-            currentChunkIterator = new ChunkContentIterator(signedChunkContent);
-            return false;
-        }
+        int signedChunkLength = createSignedChunk(chunkData, chunkSizeInBytes);
+        currentChunkIterator = new ChunkContentIterator(signedChunk, signedChunkLength);
+        return chunkSizeInBytes == 0;
     }
 
-    private byte[] createSignedChunk(byte[] chunkData) {
+    /**
+     * Signs the first {@code chunkLength} bytes of {@code chunkData} and writes
+     * the signed chunk into {@link #signedChunk}.
+     *
+     * @return the length of the signed chunk
+     */
+    private int createSignedChunk(byte[] chunkData, int chunkLength) {
         StringBuilder chunkHeader = new StringBuilder();
         // chunk-size
-        chunkHeader.append(Integer.toHexString(chunkData.length));
+        chunkHeader.append(Integer.toHexString(chunkLength));
         // nonsig-extension
         String nonsigExtension = "";
         // sig-extension
@@ -326,8 +337,8 @@ public final class AwsChunkedEncodingInputStream extends SdkInputStream {
                         dateTime + "\n" +
                         keyPath + "\n" +
                         priorChunkSignature + "\n" +
-                        BinaryUtils.toHex(aws4Signer.hash(nonsigExtension)) + "\n" +
-                        BinaryUtils.toHex(aws4Signer.hash(chunkData));
+                        nonsigExtensionHash + "\n" +
+                        BinaryUtils.toHex(aws4Signer.hash(chunkData, 0, chunkLength));
         String chunkSignature = BinaryUtils.toHex(aws4Signer.sign(chunkStringToSign, kSigning,
                 SigningAlgorithm.HmacSHA256));
         priorChunkSignature = chunkSignature;
@@ -337,13 +348,17 @@ public final class AwsChunkedEncodingInputStream extends SdkInputStream {
         try {
             byte[] header = chunkHeader.toString().getBytes(UTF8);
             byte[] trailer = CLRF.getBytes(UTF8);
-            byte[] signedChunk = new byte[header.length + chunkData.length + trailer.length];
+            int signedChunkLength = header.length + chunkLength + trailer.length;
+            if (signedChunk == null || signedChunk.length < signedChunkLength) {
+                signedChunk = new byte[(int) calculateSignedChunkLength(
+                        Math.max(chunkLength, DEFAULT_CHUNK_SIZE))];
+            }
             System.arraycopy(header, 0, signedChunk, 0, header.length);
-            System.arraycopy(chunkData, 0, signedChunk, header.length, chunkData.length);
+            System.arraycopy(chunkData, 0, signedChunk, header.length, chunkLength);
             System.arraycopy(trailer, 0,
-                    signedChunk, header.length + chunkData.length,
+                    signedChunk, header.length + chunkLength,
                     trailer.length);
-            return signedChunk;
+            return signedChunkLength;
         } catch (Exception e) {
             throw new AmazonClientException("Unable to sign the chunked data. " + e.getMessage(), e);
         }
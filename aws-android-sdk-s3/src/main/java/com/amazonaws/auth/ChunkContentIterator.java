@@ -18,14 +18,24 @@ package com.amazonaws.auth;
 class ChunkContentIterator {
 
     private final byte[] signedChunk;
+    private final int signedChunkLength;
     private int pos;
 
     public ChunkContentIterator(byte[] signedChunk) {
+        this(signedChunk, signedChunk.length);
+    }
+
+    /**
+     * @param signedChunk buffer holding the signed chunk
+     * @param signedChunkLength number of valid bytes at the start of the buffer
+     */
+    public ChunkContentIterator(byte[] signedChunk, int signedChunkLength) {
         this.signedChunk = signedChunk;
+        this.signedChunkLength = signedChunkLength;
     }
 
     public boolean hasNext() {
-        return pos < signedChunk.length;
+        return pos < signedChunkLength;
     }
 
     public int read(byte[] output, int offset, int length) {
@@ -33,7 +43,7 @@ class ChunkContentIterator {
             return 0;
         if (!hasNext())
             return -1;
-        int remaingBytesNum = signedChunk.length - pos;
+        int remaingBytesNum = signedChunkLength - pos;
         int bytesToRead = Math.min(remaingBytesNum, length);
         System.arraycopy(signedChunk, pos, output, offset, bytesToRead);
         pos += bytesToRead;
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.amazonaws.util.StringUtils;
+import com.amazonaws.util.json.AwsJsonReader;
+import com.amazonaws.util.json.AwsJsonWriter;
+import com.amazonaws.util.json.JsonUtils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * An {@link UploadCheckpointStore} that keeps each checkpoint in a file of a
+ * directory, so that uploads can be resumed after the process restarts.
+ * <p>
+ * A checkpoint file is a journal of JSON lines: the first line describes the
+ * upload, and every completed part appends a line with its part number and
+ * ETag. Recording a part therefore writes a few dozen bytes, however many
+ * parts the upload has. A line torn by a crash is ignored when the checkpoint
+ * is loaded, which only means that part is uploaded again.
+ *
+ * @deprecated The Transfer Manager is now deprecated in favor of the
+ *             {@link com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility}
+ */
+@Deprecated
+public class FileUploadCheckpointStore implements UploadCheckpointStore {
+    private static final Log log = LogFactory.getLog(FileUploadCheckpointStore.class);
+
+    private static final String SUFFIX = ".upload";
+
+    private final File directory;
+
+    /**
+     * @param directory the directory to keep checkpoint files in; it is
+     *            created if it doesn't exist
+     */
+    public FileUploadCheckpointStore(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("The directory must be specified");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory the checkpoint files are kept in.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized UploadCheckpoint load(String bucketName, String key, String file) {
+        File journal = journal(bucketName, key, file);
+        if (!journal.isFile()) {
+            return null;
+        }
+        UploadCheckpoint checkpoint = null;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal),
+                    StringUtils.UTF8));
+            checkpoint = readCheckpoint(reader.readLine());
+            if (checkpoint == null || !bucketName.equals(checkpoint.getBucketName())
+                    || !key.equals(checkpoint.getKey()) || !file.equals(checkpoint.getFile())) {
+                return null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                PartETag partETag = readPart(line);
+                if (partETag != null) {
+                    checkpoint.addPartETag(partETag);
+                }
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to read upload checkpoint " + journal, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    log.debug("Unable to close upload checkpoint " + journal, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void save(UploadCheckpoint checkpoint) {
+        StringBuilder content = new StringBuilder(writeCheckpoint(checkpoint)).append('\n');
+        for (PartETag partETag : checkpoint.getPartETags()) {
+            content.append(writePart(partETag)).append('\n');
+        }
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new AmazonClientException("Unable to create directory " + directory);
+        }
+        File journal = journal(checkpoint);
+        // write aside and rename, so a crash never leaves half a header behind
+        File tmp = new File(directory, journal.getName() + ".tmp");
+        write(tmp, content.toString(), false);
+        if (!tmp.renameTo(journal)) {
+            journal.delete();
+            if (!tmp.renameTo(journal)) {
+                tmp.delete();
+                throw new AmazonClientException("Unable to write upload checkpoint " + journal);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void savePart(UploadCheckpoint checkpoint, PartETag partETag) {
+        File journal = journal(checkpoint);
+        if (!journal.isFile()) {
+            // deleted while the part was in flight
+            return;
+        }
+        write(journal, writePart(partETag) + "\n", true);
+    }
+
+    @Override
+    public synchronized void delete(UploadCheckpoint checkpoint) {
+        File journal = journal(checkpoint);
+        if (journal.exists() && !journal.delete()) {
+            log.warn("Unable to delete upload checkpoint " + journal);
+        }
+    }
+
+    private File journal(UploadCheckpoint checkpoint) {
+        return journal(checkpoint.getBucketName(), checkpoint.getKey(), checkpoint.getFile());
+    }
+
+    private File journal(String bucketName, String key, String file) {
+        String id = bucketName + "/" + key + "\n" + file;
+        return new File(directory,
+                BinaryUtils.toHex(Md5Utils.computeMD5Hash(id.getBytes(StringUtils.UTF8)))
+                        + SUFFIX);
+    }
+
+    private static void write(File file, String content, boolean append) {
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file, append);
+            out.write(content.getBytes(StringUtils.UTF8));
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to write upload checkpoint " + file, e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    log.debug("Unable to close upload checkpoint " + file, e);
+                }
+            }
+        }
+    }
+
+    private static String writeCheckpoint(UploadCheckpoint checkpoint) {
+        StringWriter out = new StringWriter();
+        AwsJsonWriter writer = JsonUtils.getJsonWriter(out);
+        try {
+            writer.beginObject()
+                    .name("bucketName").value(checkpoint.getBucketName())
+                    .name("key").value(checkpoint.getKey())
+                    .name("file").value(checkpoint.getFile())
+                    .name("fileLength").value(checkpoint.getFileLength())
+                    .name("fileLastModified").value(checkpoint.getFileLastModified())
+                    .name("multipartUploadId").value(checkpoint.getMultipartUploadId())
+                    .name("partSize").value(checkpoint.getPartSize())
+                    .endObject().close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    private static String writePart(PartETag partETag) {
+        StringWriter out = new StringWriter();
+        AwsJsonWriter writer = JsonUtils.getJsonWriter(out);
+        try {
+            writer.beginObject()
+                    .name("partNumber").value(partETag.getPartNumber())
+                    .name("eTag").value(partETag.getETag())
+                    .endObject().close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    private static UploadCheckpoint readCheckpoint(String line) {
+        if (line == null) {
+            return null;
+        }
+        String bucketName = null;
+        String key = null;
+        String file = null;
+        long fileLength = -1;
+        long fileLastModified = -1;
+        String multipartUploadId = null;
+        long partSize = -1;
+        AwsJsonReader reader = JsonUtils.getJsonReader(new StringReader(line));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("bucketName")) {
+                    bucketName = reader.nextString();
+                } else if (name.equals("key")) {
+                    key = reader.nextString();
+                } else if (name.equals("file")) {
+                    file = reader.nextString();
+                } else if (name.equals("fileLength")) {
+                    fileLength = Long.parseLong(reader.nextString());
+                } else if (name.equals("fileLastModified")) {
+                    fileLastModified = Long.parseLong(reader.nextString());
+                } else if (name.equals("multipartUploadId")) {
+                    multipartUploadId = reader.nextString();
+                } else if (name.equals("partSize")) {
+                    partSize = Long.parseLong(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (Exception e) {
+            log.debug("Ignoring unreadable upload checkpoint: " + line, e);
+            return null;
+        }
+        if (multipartUploadId == null || partSize <= 0) {
+            return null;
+        }
+        return new UploadCheckpoint(bucketName, key, file, fileLength, fileLastModified,
+                multipartUploadId, partSize);
+    }
+
+    private static PartETag readPart(String line) {
+        int partNumber = -1;
+        String eTag = null;
+        AwsJsonReader reader = JsonUtils.getJsonReader(new StringReader(line));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("partNumber")) {
+                    partNumber = Integer.parseInt(reader.nextString());
+                } else if (name.equals("eTag")) {
+                    eTag = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (Exception e) {
+            // a part torn by a crash
+            log.debug("Ignoring unreadable part of upload checkpoint: " + line, e);
+            return null;
+        }
+        return partNumber > 0 && eTag != null ? new PartETag(partNumber, eTag) : null;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import com.amazonaws.services.s3.model.PartETag;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An {@link UploadCheckpointStore} that keeps checkpoints in memory. Uploads
+ * can be resumed by any {@link TransferManager} sharing the store, for as
+ * long as the process runs.
+ *
+ * @deprecated The Transfer Manager is now deprecated in favor of the
+ *             {@link com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility}
+ */
+@Deprecated
+public class InMemoryUploadCheckpointStore implements UploadCheckpointStore {
+
+    private final ConcurrentMap<String, UploadCheckpoint> checkpoints =
+            new ConcurrentHashMap<String, UploadCheckpoint>();
+
+    @Override
+    public UploadCheckpoint load(String bucketName, String key, String file) {
+        return checkpoints.get(id(bucketName, key, file));
+    }
+
+    @Override
+    public void save(UploadCheckpoint checkpoint) {
+        checkpoints.put(id(checkpoint), checkpoint);
+    }
+
+    @Override
+    public void savePart(UploadCheckpoint checkpoint, PartETag partETag) {
+        // the part is already in the checkpoint, which is kept by reference
+    }
+
+    @Override
+    public void delete(UploadCheckpoint checkpoint) {
+        checkpoints.remove(id(checkpoint), checkpoint);
+    }
+
+    private static String id(UploadCheckpoint checkpoint) {
+        return id(checkpoint.getBucketName(), checkpoint.getKey(), checkpoint.getFile());
+    }
+
+    private static String id(String bucketName, String key, String file) {
+        return bucketName + "/" + key + "\n" + file;
+    }
+}
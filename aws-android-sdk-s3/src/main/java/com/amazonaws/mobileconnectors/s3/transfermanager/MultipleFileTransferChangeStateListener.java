@@ -15,34 +15,55 @@
 
 package com.amazonaws.mobileconnectors.s3.transfermanager;
 
-import com.amazonaws.AmazonClientException;
 import com.amazonaws.mobileconnectors.s3.transfermanager.Transfer.TransferState;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.MultipleFileTransfer;
+import com.amazonaws.mobileconnectors.s3.transfermanager.internal.MultipleFileTransferMonitor;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.TransferStateChangeListener;
 
-import java.util.concurrent.CountDownLatch;
-
+/**
+ * Rolls the state changes of the sub-transfers of a multiple file transfer up
+ * into the state of the transfer. Sub-transfers are started while the rest
+ * are still being found, so the transfer is only completed once
+ * {@link #allSubTransfersAdded()} has been called; until then the listener
+ * never waits, it only records that the transfer is in progress.
+ */
 final class MultipleFileTransferStateChangeListener implements TransferStateChangeListener {
-    private final CountDownLatch latch;
     private final MultipleFileTransfer<?> multipleFileTransfer;
+    private final MultipleFileTransferMonitor monitor;
 
-    public MultipleFileTransferStateChangeListener(CountDownLatch latch,
-            MultipleFileTransfer<?> multipleFileTransfer) {
-        this.latch = latch;
+    public MultipleFileTransferStateChangeListener(MultipleFileTransfer<?> multipleFileTransfer,
+            MultipleFileTransferMonitor monitor) {
         this.multipleFileTransfer = multipleFileTransfer;
+        this.monitor = monitor;
     }
 
-    @Override
-    public void transferStateChanged(Transfer upload, TransferState state) {
-        // There's a race here: we can't start monitoring the state of
-        // individual transfers until we have added all the transfers to the
-        // list, or we may incorrectly report completion.
-        try {
-            latch.await();
-        } catch (InterruptedException e) {
-            throw new AmazonClientException("Couldn't wait for all downloads to be queued");
+    /**
+     * Called once all the sub-transfers have been added. Completes the
+     * transfer if they are all done already.
+     */
+    void allSubTransfersAdded() {
+        synchronized (multipleFileTransfer) {
+            monitor.allSubTransfersAdded();
+            if (!multipleFileTransfer.isDone() && monitor.isDone()) {
+                multipleFileTransfer.collateFinalState();
+            }
         }
+    }
 
+    /**
+     * Called when not all the sub-transfers could be found. Fails the
+     * transfer; the sub-transfers already started run to their end.
+     */
+    void subTransfersFailed() {
+        synchronized (multipleFileTransfer) {
+            if (!multipleFileTransfer.isDone()) {
+                multipleFileTransfer.setState(TransferState.Failed);
+            }
+        }
+    }
+
+    @Override
+    public void transferStateChanged(Transfer upload, TransferState state) {
         synchronized (multipleFileTransfer) {
             if (multipleFileTransfer.getState() == state || multipleFileTransfer.isDone())
                 return;
@@ -50,11 +71,12 @@ final class MultipleFileTransferStateChangeListener implements TransferStateChan
             /*
              * If we're not already in a terminal state, allow a transition to a
              * non-waiting state. Mark completed if this download is completed
-             * and the monitor says all of the rest are as well.
+             * and the monitor says all of the rest are as well; the monitor
+             * doesn't until all the transfers have been added.
              */
             if (state == TransferState.InProgress) {
                 multipleFileTransfer.setState(state);
-            } else if (multipleFileTransfer.getMonitor().isDone()) {
+            } else if (monitor.isDone()) {
                 multipleFileTransfer.collateFinalState();
             } else {
                 multipleFileTransfer.setState(TransferState.InProgress);
@@ -35,6 +35,7 @@ import com.amazonaws.mobileconnectors.s3.transfermanager.internal.CopyImpl;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.CopyMonitor;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.DownloadImpl;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.DownloadMonitor;
+import com.amazonaws.mobileconnectors.s3.transfermanager.internal.MultipartDownloadCallable;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.MultipleFileDownloadImpl;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.MultipleFileTransferMonitor;
 import com.amazonaws.mobileconnectors.s3.transfermanager.internal.MultipleFileUploadImpl;
@@ -70,11 +71,16 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Stack;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -676,25 +682,55 @@ public class TransferManager {
                     "Unable to determine the range for download operation.");
         }
 
+        // Large objects may be fetched over several connections, unless only
+        // part of the object is requested or the download is being resumed.
+        final boolean multipartDownload = !resumeExistingDownload
+                && getObjectRequest.getRange() == null
+                && !hasConstraints(getObjectRequest)
+                && !(s3 instanceof AmazonS3EncryptionClient)
+                && configuration.getMultipartDownloadPartSize() > 0
+                && totalBytesToDownload >= configuration.getMultipartDownloadThreshold();
+
         final CountDownLatch latch = new CountDownLatch(1);
         Future<?> future = submitDownloadTask(getObjectRequest, file,
-                resumeExistingDownload, latch, download);
+                resumeExistingDownload, latch, download,
+                multipartDownload ? objectMetadata : null);
         download.setMonitor(new DownloadMonitor(download, future));
         latch.countDown();
         return download;
     }
 
+    private static boolean hasConstraints(GetObjectRequest getObjectRequest) {
+        return !getObjectRequest.getMatchingETagConstraints().isEmpty()
+                || !getObjectRequest.getNonmatchingETagConstraints().isEmpty()
+                || getObjectRequest.getModifiedSinceConstraint() != null
+                || getObjectRequest.getUnmodifiedSinceConstraint() != null;
+    }
+
+    /**
+     * Submits the task carrying out the download. If the object metadata is
+     * given, the object is downloaded in byte ranges over several connections.
+     */
     private Future<?> submitDownloadTask(
             final GetObjectRequest getObjectRequest, final File file,
             final boolean resumeExistingDownload,
             final CountDownLatch latch,
-            final DownloadImpl download) {
+            final DownloadImpl download,
+            final ObjectMetadata multipartDownloadMetadata) {
         Future<?> future = threadPool.submit(new Callable<Object>() {
             @Override
             public Object call() throws Exception {
                 try {
                     latch.await();
                     download.setState(TransferState.InProgress);
+                    if (multipartDownloadMetadata != null) {
+                        new MultipartDownloadCallable(s3, threadPool, getObjectRequest,
+                                multipartDownloadMetadata, file,
+                                configuration.getMultipartDownloadPartSize(), download,
+                                !ServiceUtils.skipMd5CheckPerRequest(getObjectRequest)).call();
+                        download.setState(TransferState.Completed);
+                        return true;
+                    }
                     S3Object s3Object = ServiceUtils.retryableDownloadS3ObjectToFile(file,
                             new ServiceUtils.RetryableS3DownloadTask() {
 
@@ -762,51 +798,10 @@ public class TransferManager {
         if (keyPrefix == null)
             keyPrefix = "";
 
-        List<S3ObjectSummary> objectSummaries = new LinkedList<S3ObjectSummary>();
-        Stack<String> commonPrefixes = new Stack<String>();
-        commonPrefixes.add(keyPrefix);
-        long totalSize = 0;
-
-        // Recurse all virtual subdirectories to get a list of object summaries.
-        // This is a depth-first search.
-        do {
-            String prefix = commonPrefixes.pop();
-            ObjectListing listObjectsResponse = null;
-
-            do {
-                if (listObjectsResponse == null) {
-                    ListObjectsRequest listObjectsRequest = new ListObjectsRequest()
-                            .withBucketName(bucketName)
-                            .withDelimiter(DEFAULT_DELIMITER).withPrefix(prefix);
-                    listObjectsResponse = s3.listObjects(listObjectsRequest);
-                } else {
-                    listObjectsResponse = s3.listNextBatchOfObjects(listObjectsResponse);
-                }
-
-                for (S3ObjectSummary s : listObjectsResponse.getObjectSummaries()) {
-                    // Skip any files that are also virtual directories, since
-                    // we can't save both a directory and a file of the same
-                    // name.
-                    if (!s.getKey().equals(prefix)
-                            && !listObjectsResponse.getCommonPrefixes().contains(
-                                    s.getKey() + DEFAULT_DELIMITER)) {
-                        objectSummaries.add(s);
-                        totalSize += s.getSize();
-                    } else {
-                        log.debug("Skipping download for object " + s.getKey()
-                                + " since it is also a virtual directory");
-                    }
-                }
-
-                commonPrefixes.addAll(listObjectsResponse.getCommonPrefixes());
-            } while (listObjectsResponse.isTruncated());
-        } while (!commonPrefixes.isEmpty());
-
         /* This is the hook for adding additional progress listeners */
         ProgressListenerChain additionalListeners = new ProgressListenerChain();
 
         TransferProgress transferProgress = new TransferProgress();
-        transferProgress.setTotalBytesToTransfer(totalSize);
         /*
          * Bind additional progress listeners to this
          * MultipleFileTransferProgressUpdatingListener to receive
@@ -821,42 +816,93 @@ public class TransferManager {
         final MultipleFileDownloadImpl multipleFileDownload = new MultipleFileDownloadImpl(
                 description, transferProgress,
                 additionalListeners, keyPrefix, bucketName, downloads);
-        multipleFileDownload.setMonitor(new MultipleFileTransferMonitor(multipleFileDownload,
-                downloads));
+        MultipleFileTransferMonitor monitor = new MultipleFileTransferMonitor(
+                multipleFileDownload, downloads);
+        multipleFileDownload.setMonitor(monitor);
 
-        final CountDownLatch latch = new CountDownLatch(1);
         MultipleFileTransferStateChangeListener transferListener = new MultipleFileTransferStateChangeListener(
-                latch, multipleFileDownload);
-
-        for (S3ObjectSummary summary : objectSummaries) {
-            // TODO: non-standard delimiters
-            File f = new File(destinationDirectory, summary.getKey());
-            File parentFile = f.getParentFile();
-            if (!parentFile.exists() && !parentFile.mkdirs()) {
-                throw new RuntimeException("Couldn't create parent directories for "
-                        + f.getAbsolutePath());
-            }
+                multipleFileDownload, monitor);
 
-            // All the single-file downloads share the same
-            // MultipleFileTransferProgressUpdatingListener and
-            // MultipleFileTransferStateChangeListener
-            downloads.add((DownloadImpl) doDownload(
-                    new GetObjectRequest(summary.getBucketName(),
-                            summary.getKey())
-                            .withGeneralProgressListener(
-                            listener),
-                    f,
-                    transferListener, null, false));
-        }
+        Stack<String> commonPrefixes = new Stack<String>();
+        commonPrefixes.add(keyPrefix);
+        long totalSize = 0;
+        boolean listed = false;
 
-        if (downloads.isEmpty()) {
-            multipleFileDownload.setState(TransferState.Completed);
-            return multipleFileDownload;
-        }
+        /*
+         * Recurse all virtual subdirectories, starting the downloads of each
+         * page of the listing before the next page is requested. This is a
+         * depth-first search.
+         */
+        try {
+            do {
+                String prefix = commonPrefixes.pop();
+                ObjectListing listObjectsResponse = null;
+
+                do {
+                    if (listObjectsResponse == null) {
+                        ListObjectsRequest listObjectsRequest = new ListObjectsRequest()
+                                .withBucketName(bucketName)
+                                .withDelimiter(DEFAULT_DELIMITER).withPrefix(prefix);
+                        listObjectsResponse = s3.listObjects(listObjectsRequest);
+                    } else {
+                        listObjectsResponse = s3.listNextBatchOfObjects(listObjectsResponse);
+                    }
 
-        // Notify all state changes waiting for the downloads to all be queued
-        // to wake up and continue.
-        latch.countDown();
+                    for (S3ObjectSummary summary : listObjectsResponse.getObjectSummaries()) {
+                        // Skip any files that are also virtual directories, since
+                        // we can't save both a directory and a file of the same
+                        // name.
+                        if (summary.getKey().equals(prefix)
+                                || listObjectsResponse.getCommonPrefixes().contains(
+                                        summary.getKey() + DEFAULT_DELIMITER)) {
+                            log.debug("Skipping download for object " + summary.getKey()
+                                    + " since it is also a virtual directory");
+                            continue;
+                        }
+                        totalSize += summary.getSize();
+
+                        // TODO: non-standard delimiters
+                        File f = new File(destinationDirectory, summary.getKey());
+                        File parentFile = f.getParentFile();
+                        if (!parentFile.exists() && !parentFile.mkdirs()) {
+                            throw new RuntimeException("Couldn't create parent directories for "
+                                    + f.getAbsolutePath());
+                        }
+
+                        // All the single-file downloads share the same
+                        // MultipleFileTransferProgressUpdatingListener and
+                        // MultipleFileTransferStateChangeListener
+                        downloads.add((DownloadImpl) doDownload(
+                                new GetObjectRequest(summary.getBucketName(),
+                                        summary.getKey())
+                                        .withGeneralProgressListener(
+                                        listener),
+                                f,
+                                transferListener, null, false));
+                    }
+
+                    commonPrefixes.addAll(listObjectsResponse.getCommonPrefixes());
+                } while (listObjectsResponse.isTruncated());
+            } while (!commonPrefixes.isEmpty());
+            listed = true;
+        } finally {
+            // The downloads already started report to the listener, so it
+            // has to learn how the listing ended in any case.
+            if (listed) {
+                transferProgress.setTotalBytesToTransfer(totalSize);
+                transferListener.allSubTransfersAdded();
+            } else {
+                // The caller gets no handle to abort them with, so the
+                // downloads already started are aborted here.
+                transferListener.subTransfersFailed();
+                try {
+                    multipleFileDownload.abort();
+                } catch (IOException e) {
+                    log.warn("Unable to abort the downloads started before the listing failed",
+                            e);
+                }
+            }
+        }
 
         return multipleFileDownload;
     }
@@ -908,11 +954,8 @@ public class TransferManager {
             throw new IllegalArgumentException("Must provide a directory to upload");
         }
 
-        List<File> files = new LinkedList<File>();
-        listFiles(directory, files, includeSubdirectories);
-
-        return uploadFileList(bucketName, virtualDirectoryKeyPrefix, directory, files,
-                metadataProvider);
+        return uploadFiles(bucketName, virtualDirectoryKeyPrefix, directory,
+                new DirectoryIterator(directory, includeSubdirectories), metadataProvider);
     }
 
     /**
@@ -967,6 +1010,19 @@ public class TransferManager {
                     "Must provide a common base directory for uploaded files");
         }
 
+        Iterator<File> fileIterator = files == null ? Collections.<File> emptyList().iterator()
+                : files.iterator();
+        return uploadFiles(bucketName, virtualDirectoryKeyPrefix, directory, fileIterator,
+                metadataProvider);
+    }
+
+    /**
+     * Uploads the files as they are returned by the iterator, so that the first
+     * uploads start while the remaining files are still being found.
+     */
+    private MultipleFileUpload uploadFiles(String bucketName, String virtualDirectoryKeyPrefix,
+            File directory, Iterator<File> files, ObjectMetadataProvider metadataProvider) {
+
         if (virtualDirectoryKeyPrefix == null || virtualDirectoryKeyPrefix.length() == 0) {
             virtualDirectoryKeyPrefix = "";
         } else if (!virtualDirectoryKeyPrefix.endsWith("/")) {
@@ -988,29 +1044,29 @@ public class TransferManager {
         List<UploadImpl> uploads = new LinkedList<UploadImpl>();
         MultipleFileUploadImpl multipleFileUpload = new MultipleFileUploadImpl("Uploading etc",
                 progress, additionalListeners, virtualDirectoryKeyPrefix, bucketName, uploads);
-        multipleFileUpload.setMonitor(new MultipleFileTransferMonitor(multipleFileUpload, uploads));
+        MultipleFileTransferMonitor monitor = new MultipleFileTransferMonitor(
+                multipleFileUpload, uploads);
+        multipleFileUpload.setMonitor(monitor);
 
-        final CountDownLatch latch = new CountDownLatch(1);
         MultipleFileTransferStateChangeListener transferListener = new MultipleFileTransferStateChangeListener(
-                latch, multipleFileUpload);
+                multipleFileUpload, monitor);
 
-        if (files == null || files.isEmpty()) {
-            multipleFileUpload.setState(TransferState.Completed);
-        } else {
+        /*
+         * If the absolute path for the common/base directory does NOT end in a
+         * separator (which is the case for anything but root directories),
+         * then we know there's still a separator between the base directory
+         * and the rest of the file's path, so we increment the starting
+         * position by one.
+         */
+        int startingPosition = directory.getAbsolutePath().length();
+        if (!(directory.getAbsolutePath().endsWith(File.separator)))
+            startingPosition++;
 
-            /*
-             * If the absolute path for the common/base directory does NOT end
-             * in a separator (which is the case for anything but root
-             * directories), then we know there's still a separator between the
-             * base directory and the rest of the file's path, so we increment
-             * the starting position by one.
-             */
-            int startingPosition = directory.getAbsolutePath().length();
-            if (!(directory.getAbsolutePath().endsWith(File.separator)))
-                startingPosition++;
-
-            long totalSize = 0;
-            for (File f : files) {
+        long totalSize = 0;
+        boolean listed = false;
+        try {
+            while (files.hasNext()) {
+                File f = files.next();
                 // Check, if file, since only files can be uploaded.
                 if (f.isFile()) {
                     totalSize += f.length();
@@ -1039,32 +1095,81 @@ public class TransferManager {
                             transferListener, null, null));
                 }
             }
-            progress.setTotalBytesToTransfer(totalSize);
+            listed = true;
+        } finally {
+            // The uploads already started report to the listener, so it has
+            // to learn how the enumeration ended in any case.
+            if (listed) {
+                progress.setTotalBytesToTransfer(totalSize);
+                transferListener.allSubTransfersAdded();
+            } else {
+                // The caller gets no handle to abort them with, so the
+                // uploads already started are aborted here.
+                transferListener.subTransfersFailed();
+                for (UploadImpl upload : uploads) {
+                    upload.abort();
+                }
+            }
         }
 
-        // Notify all state changes waiting for the uploads to all be queued
-        // to wake up and continue
-        latch.countDown();
-
         return multipleFileUpload;
     }
 
     /**
-     * Lists files in the directory given and adds them to the result list
-     * passed in, optionally adding subdirectories recursively.
+     * Iterates over the files in a directory, optionally including the files
+     * in its subdirectories recursively. Each directory is only listed when
+     * the iteration reaches it.
      */
-    private void listFiles(File dir, List<File> results, boolean includeSubDirectories) {
-        File[] found = dir.listFiles();
-        if (found != null) {
-            for (File f : found) {
+    private static final class DirectoryIterator implements Iterator<File> {
+        private final boolean includeSubDirectories;
+        private final Stack<Iterator<File>> directories = new Stack<Iterator<File>>();
+        private File next;
+
+        DirectoryIterator(File directory, boolean includeSubDirectories) {
+            this.includeSubDirectories = includeSubDirectories;
+            push(directory);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !directories.isEmpty()) {
+                Iterator<File> entries = directories.peek();
+                if (!entries.hasNext()) {
+                    directories.pop();
+                    continue;
+                }
+                File f = entries.next();
                 if (f.isDirectory()) {
                     if (includeSubDirectories) {
-                        listFiles(f, results, includeSubDirectories);
+                        push(f);
                     }
                 } else {
-                    results.add(f);
+                    next = f;
                 }
             }
+            return next != null;
+        }
+
+        @Override
+        public File next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            File f = next;
+            next = null;
+            return f;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void push(File directory) {
+            File[] found = directory.listFiles();
+            if (found != null) {
+                directories.push(Arrays.asList(found).iterator());
+            }
         }
     }
 
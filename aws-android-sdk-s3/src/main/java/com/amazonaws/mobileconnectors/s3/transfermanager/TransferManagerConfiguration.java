@@ -47,6 +47,9 @@ public class TransferManagerConfiguration {
     /** Default minimum size of each part for multi-part copy. */
     private static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /** Default size of each byte range for multi-part downloads. */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE = 8 * MB;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -85,6 +88,24 @@ public class TransferManagerConfiguration {
      */
     private long multipartCopyPartSize = DEFAULT_MINIMUM_COPY_PART_SIZE;
 
+    /**
+     * The size threshold, in bytes, for when to download an object over
+     * several connections, each fetching a byte range of the object. Disabled
+     * by default.
+     */
+    private long multipartDownloadThreshold = Long.MAX_VALUE;
+
+    /**
+     * The size in bytes of each byte range of a multi-part download.
+     */
+    private long multipartDownloadPartSize = DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE;
+
+    /**
+     * The store recording the progress of multipart file uploads, so they can
+     * be resumed after a restart. Disabled by default.
+     */
+    private UploadCheckpointStore uploadCheckpointStore;
+
     /**
      * Returns the minimum part size for upload parts. Decreasing the minimum
      * part size causes multipart uploads to be split into a larger number of
@@ -192,4 +213,78 @@ public class TransferManagerConfiguration {
     public void setMultipartCopyThreshold(long multipartCopyThreshold) {
         this.multipartCopyThreshold = multipartCopyThreshold;
     }
+
+    /**
+     * Returns the size threshold in bytes for when to download objects over
+     * several connections. Objects of this size or larger are split into byte
+     * ranges which are fetched in parallel and written to the destination
+     * file at their respective positions.
+     *
+     * @return The size threshold in bytes for when to use multi-part
+     *         downloads.
+     */
+    public long getMultipartDownloadThreshold() {
+        return multipartDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to download objects over
+     * several connections. Objects of this size or larger are split into byte
+     * ranges which are fetched in parallel and written to the destination
+     * file at their respective positions. Multi-part downloads are not used
+     * for ranged or constrained requests, when resuming a download, or with
+     * the encryption client. The default is {@link Long#MAX_VALUE}, i.e.
+     * disabled.
+     *
+     * @param multipartDownloadThreshold The size threshold in bytes for when
+     *            to use multi-part downloads.
+     */
+    public void setMultipartDownloadThreshold(long multipartDownloadThreshold) {
+        this.multipartDownloadThreshold = multipartDownloadThreshold;
+    }
+
+    /**
+     * Returns the size in bytes of each byte range of a multi-part download.
+     *
+     * @return The size in bytes of each byte range.
+     */
+    public long getMultipartDownloadPartSize() {
+        return multipartDownloadPartSize;
+    }
+
+    /**
+     * Sets the size in bytes of each byte range of a multi-part download.
+     *
+     * @param multipartDownloadPartSize The size in bytes of each byte range.
+     */
+    public void setMultipartDownloadPartSize(long multipartDownloadPartSize) {
+        this.multipartDownloadPartSize = multipartDownloadPartSize;
+    }
+
+    /**
+     * Returns the store recording the progress of multipart file uploads, or
+     * null if uploads aren't checkpointed.
+     *
+     * @return The store recording the progress of uploads, or null.
+     */
+    public UploadCheckpointStore getUploadCheckpointStore() {
+        return uploadCheckpointStore;
+    }
+
+    /**
+     * Sets the store recording the progress of multipart file uploads. When
+     * set, uploading a file resumes the multipart upload recorded for the same
+     * bucket, key and file, provided the file hasn't changed since. Only
+     * uploads of files whose parts are uploaded in parallel are checkpointed;
+     * uploads from streams, with the encryption client, or with a customer
+     * provided encryption key are not. The default is null, i.e. disabled.
+     *
+     * @param uploadCheckpointStore The store recording the progress of
+     *            uploads, or null to disable checkpoints.
+     * @see FileUploadCheckpointStore
+     * @see InMemoryUploadCheckpointStore
+     */
+    public void setUploadCheckpointStore(UploadCheckpointStore uploadCheckpointStore) {
+        this.uploadCheckpointStore = uploadCheckpointStore;
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import com.amazonaws.services.s3.model.PartETag;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The state of a multipart upload of a file, recorded by an
+ * {@link UploadCheckpointStore} so that the upload can be resumed after the
+ * process that started it is gone. A checkpoint holds the multipart upload id,
+ * the part size, and the ETag of every part that completed so far. It also
+ * remembers the length and modification time of the file, so that a changed
+ * file is uploaded afresh instead of resumed.
+ *
+ * @deprecated The Transfer Manager is now deprecated in favor of the
+ *             {@link com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility}
+ */
+@Deprecated
+public final class UploadCheckpoint {
+
+    /** The bucket name in Amazon S3 to which the object is uploaded. */
+    private final String bucketName;
+
+    /** The name of the object in Amazon S3. */
+    private final String key;
+
+    /** The absolute path of the file to upload. */
+    private final String file;
+
+    /** The length of the file when the upload started. */
+    private final long fileLength;
+
+    /** The modification time of the file when the upload started. */
+    private final long fileLastModified;
+
+    /** The multi-part upload id associated with this upload. */
+    private final String multipartUploadId;
+
+    /** The size of every part but the last. */
+    private final long partSize;
+
+    /* Guarded by this */
+    private final Map<Integer, String> partETags = new TreeMap<Integer, String>();
+
+    /**
+     * @param bucketName the name of the bucket
+     * @param key the name of the object
+     * @param file the absolute path of the file to upload
+     * @param fileLength the length of the file
+     * @param fileLastModified the modification time of the file
+     * @param multipartUploadId the multi-part upload id
+     * @param partSize the size of every part but the last
+     */
+    public UploadCheckpoint(String bucketName, String key, String file, long fileLength,
+            long fileLastModified, String multipartUploadId, long partSize) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.file = file;
+        this.fileLength = fileLength;
+        this.fileLastModified = fileLastModified;
+        this.multipartUploadId = multipartUploadId;
+        this.partSize = partSize;
+    }
+
+    /**
+     * Returns the name of the bucket.
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Returns the name of the object.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the absolute path of the file to upload.
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the length of the file when the upload started.
+     */
+    public long getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * Returns the modification time of the file when the upload started.
+     */
+    public long getFileLastModified() {
+        return fileLastModified;
+    }
+
+    /**
+     * Returns the multi part upload id.
+     */
+    public String getMultipartUploadId() {
+        return multipartUploadId;
+    }
+
+    /**
+     * Returns the size of every part but the last.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Returns true if the given file has the same length and modification time
+     * as the file this checkpoint was recorded for.
+     *
+     * @param file the file to check
+     * @return true if the upload of the file can be resumed from this
+     *         checkpoint
+     */
+    public boolean isCurrent(File file) {
+        return file.length() == fileLength && file.lastModified() == fileLastModified;
+    }
+
+    /**
+     * Records a part that completed.
+     *
+     * @param partETag the part number and ETag of the part
+     */
+    public synchronized void addPartETag(PartETag partETag) {
+        partETags.put(partETag.getPartNumber(), partETag.getETag());
+    }
+
+    /**
+     * Returns the ETag of the given part, or null if the part hasn't been
+     * recorded as completed.
+     *
+     * @param partNumber the part number
+     * @return the ETag of the part, or null
+     */
+    public synchronized String getPartETag(int partNumber) {
+        return partETags.get(partNumber);
+    }
+
+    /**
+     * Returns the parts recorded as completed, ordered by part number.
+     *
+     * @return a copy of the completed parts
+     */
+    public synchronized List<PartETag> getPartETags() {
+        List<PartETag> list = new ArrayList<PartETag>(partETags.size());
+        for (Map.Entry<Integer, String> entry : partETags.entrySet()) {
+            list.add(new PartETag(entry.getKey(), entry.getValue()));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import com.amazonaws.services.s3.model.PartETag;
+
+/**
+ * Records the progress of multipart file uploads, so that
+ * {@link TransferManager} can resume them after a restart instead of starting
+ * over. Set a store with
+ * {@link TransferManagerConfiguration#setUploadCheckpointStore(UploadCheckpointStore)}.
+ * <p>
+ * When a file is uploaded to a bucket and key that has a checkpoint, and the
+ * file hasn't changed since, the upload continues the recorded multipart
+ * upload. The parts already in Amazon S3 are listed and skipped. The
+ * checkpoint is deleted when the upload completes or is aborted; it is kept
+ * when the upload fails, so that uploading the file again resumes it.
+ * <p>
+ * Implementations must be safe to use from several threads at once, since
+ * parts complete concurrently.
+ *
+ * @see FileUploadCheckpointStore
+ * @see InMemoryUploadCheckpointStore
+ * @deprecated The Transfer Manager is now deprecated in favor of the
+ *             {@link com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility}
+ */
+@Deprecated
+public interface UploadCheckpointStore {
+
+    /**
+     * Returns the checkpoint of the upload of the given file to the given
+     * bucket and key, or null if there is none.
+     *
+     * @param bucketName the name of the bucket
+     * @param key the name of the object
+     * @param file the absolute path of the file
+     * @return the checkpoint, including the parts that completed, or null
+     */
+    UploadCheckpoint load(String bucketName, String key, String file);
+
+    /**
+     * Records a new checkpoint, replacing any checkpoint of the same bucket,
+     * key and file.
+     *
+     * @param checkpoint the checkpoint to record
+     */
+    void save(UploadCheckpoint checkpoint);
+
+    /**
+     * Records a part that completed. The part has already been added to the
+     * checkpoint.
+     *
+     * @param checkpoint the checkpoint of the upload
+     * @param partETag the part number and ETag of the part
+     */
+    void savePart(UploadCheckpoint checkpoint, PartETag partETag);
+
+    /**
+     * Deletes the given checkpoint.
+     *
+     * @param checkpoint the checkpoint to delete
+     */
+    void delete(UploadCheckpoint checkpoint);
+}
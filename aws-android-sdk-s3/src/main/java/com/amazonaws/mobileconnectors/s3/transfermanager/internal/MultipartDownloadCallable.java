@@ -0,0 +1,372 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager.internal;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.mobileconnectors.s3.transfermanager.TransferManager;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.ServiceUtils;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads an object into a file by fetching byte ranges of the object over
+ * several connections at once. The file is sized up front and each range is
+ * written at its own position.
+ * <p>
+ * Every range is fetched with the ETag of the object as a matching constraint,
+ * so all ranges come from the same version of the object. If the download
+ * fails, the file is truncated to the longest prefix of completed ranges,
+ * which lets a resumed download pick up from there.
+ */
+public class MultipartDownloadCallable implements Callable<Void> {
+    private static final Log log = LogFactory.getLog(MultipartDownloadCallable.class);
+
+    /** Number of connections used to download a single object. */
+    private static final int MAX_CONNECTIONS_PER_DOWNLOAD = 4;
+    /** Number of attempts for a range that fails on the client side. */
+    private static final int MAX_PART_ATTEMPTS = 2;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final GetObjectRequest getObjectRequest;
+    private final ObjectMetadata objectMetadata;
+    private final File file;
+    private final DownloadImpl download;
+    private final boolean performIntegrityCheck;
+
+    private final long totalBytes;
+    private final long partSize;
+    private final int partCount;
+    private final AtomicInteger nextPart = new AtomicInteger();
+    /* Guarded by itself */
+    private final BitSet completedParts = new BitSet();
+    /* Set once any range fails, so that the other connections stop early */
+    private volatile boolean failed;
+
+    /**
+     * @param s3 the client used to fetch the ranges
+     * @param threadPool thread pool the additional connections are run on
+     * @param getObjectRequest the original request; it must not specify a
+     *            range or any constraints
+     * @param objectMetadata metadata of the object being downloaded
+     * @param file the destination file
+     * @param partSize size in bytes of each range
+     * @param download the download to report the S3 objects to
+     * @param performIntegrityCheck whether to validate the MD5 of the whole
+     *            file against the ETag of the object
+     */
+    public MultipartDownloadCallable(AmazonS3 s3, ExecutorService threadPool,
+            GetObjectRequest getObjectRequest, ObjectMetadata objectMetadata, File file,
+            long partSize, DownloadImpl download, boolean performIntegrityCheck) {
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.getObjectRequest = getObjectRequest;
+        this.objectMetadata = objectMetadata;
+        this.file = file;
+        this.download = download;
+        this.performIntegrityCheck = performIntegrityCheck;
+        this.totalBytes = objectMetadata.getContentLength();
+        this.partSize = partSize;
+        this.partCount = (int) ((totalBytes + partSize - 1) / partSize);
+    }
+
+    @Override
+    public Void call() throws Exception {
+        File parentDirectory = file.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()) {
+            parentDirectory.mkdirs();
+        }
+
+        /*
+         * The ranges each carry the metadata of their own part, so the
+         * download reports the metadata of the whole object instead.
+         */
+        S3Object object = new S3Object();
+        object.setBucketName(getObjectRequest.getBucketName());
+        object.setKey(getObjectRequest.getKey());
+        object.setObjectMetadata(objectMetadata);
+        download.setS3Object(object);
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        List<Worker> workers = new ArrayList<Worker>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        boolean success = false;
+        try {
+            randomAccessFile.setLength(totalBytes);
+            FileChannel channel = randomAccessFile.getChannel();
+
+            /*
+             * The calling thread downloads parts too, so the download makes
+             * progress even when all threads of the pool are busy.
+             */
+            int workerCount = Math.min(partCount, MAX_CONNECTIONS_PER_DOWNLOAD) - 1;
+            for (int i = 0; i < workerCount; i++) {
+                Worker worker = new Worker(channel);
+                workers.add(worker);
+                futures.add(threadPool.submit(worker));
+            }
+            downloadParts(channel);
+
+            /*
+             * All parts have been taken by now. A worker still queued in the
+             * pool has nothing left to do, and waiting for it could deadlock
+             * the pool when this thread is one of its own, so only the
+             * workers that have started are waited for.
+             */
+            for (int i = 0; i < workers.size(); i++) {
+                Future<?> future = futures.get(i);
+                if (workers.get(i).cancelIfNotStarted()) {
+                    future.cancel(false);
+                    continue;
+                }
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    throw (Error) cause;
+                }
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            // closing the channel stops any range still being written
+            try {
+                randomAccessFile.close();
+            } catch (IOException e) {
+                log.debug("Unable to close file " + file, e);
+            }
+            if (!success) {
+                truncateToCompletedParts();
+            }
+        }
+
+        verifyIntegrity();
+        return null;
+    }
+
+    /**
+     * Downloads parts on a thread of the pool, unless the calling thread has
+     * found it not started yet once the parts ran out.
+     */
+    private final class Worker implements Callable<Void> {
+        private final FileChannel channel;
+        /* Set by whichever of the worker and the calling thread is first */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Worker(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            if (claimed.compareAndSet(false, true)) {
+                downloadParts(channel);
+            }
+            return null;
+        }
+
+        /**
+         * Returns true, and makes sure the worker will do nothing, if it
+         * hasn't started yet.
+         */
+        boolean cancelIfNotStarted() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Downloads parts until there are none left or one of them has failed.
+     */
+    private void downloadParts(FileChannel channel) throws InterruptedException {
+        boolean done = false;
+        try {
+            downloadRemainingParts(channel);
+            done = true;
+        } finally {
+            if (!done) {
+                failed = true;
+            }
+        }
+    }
+
+    private void downloadRemainingParts(FileChannel channel) throws InterruptedException {
+        int part;
+        while (!failed && (part = nextPart.getAndIncrement()) < partCount) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long partStart = part * partSize;
+            long partEnd = Math.min(partStart + partSize, totalBytes) - 1;
+            for (int attempt = 1;; attempt++) {
+                try {
+                    downloadPart(channel, partStart, partEnd);
+                    break;
+                } catch (AmazonServiceException ase) {
+                    throw ase;
+                } catch (AbortedException ae) {
+                    throw ae;
+                } catch (AmazonClientException ace) {
+                    if (attempt >= MAX_PART_ATTEMPTS || !channel.isOpen()) {
+                        throw ace;
+                    }
+                    log.info("Retrying download of bytes " + partStart + "-" + partEnd
+                            + " of " + getObjectRequest.getKey(), ace);
+                }
+            }
+            synchronized (completedParts) {
+                completedParts.set(part);
+            }
+        }
+    }
+
+    private void downloadPart(FileChannel channel, long partStart, long partEnd) {
+        S3Object s3Object = s3.getObject(newPartRequest(partStart, partEnd));
+        if (s3Object == null) {
+            throw new AmazonClientException("The object " + getObjectRequest.getKey()
+                    + " was modified while being downloaded");
+        }
+
+        S3ObjectInputStream in = s3Object.getObjectContent();
+        long position = partStart;
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > -1) {
+                // the download has been aborted
+                if (Thread.currentThread().isInterrupted()) {
+                    in.abort();
+                    throw new AbortedException();
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+        } catch (IOException e) {
+            in.abort();
+            throw new AmazonClientException(
+                    "Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            try {
+                in.close();
+            } catch (Exception e) {
+            }
+        }
+
+        if (position != partEnd + 1) {
+            throw new AmazonClientException("Received " + (position - partStart)
+                    + " bytes for range " + partStart + "-" + partEnd + " of "
+                    + getObjectRequest.getKey() + ", expected " + (partEnd - partStart + 1));
+        }
+    }
+
+    private GetObjectRequest newPartRequest(long partStart, long partEnd) {
+        GetObjectRequest request = new GetObjectRequest(getObjectRequest.getBucketName(),
+                getObjectRequest.getKey(), getObjectRequest.getVersionId())
+                .withRange(partStart, partEnd)
+                .withSSECustomerKey(getObjectRequest.getSSECustomerKey())
+                .withResponseHeaders(getObjectRequest.getResponseHeaders())
+                .withGeneralProgressListener(getObjectRequest.getGeneralProgressListener());
+        request.setRequesterPays(getObjectRequest.isRequesterPays());
+        if (objectMetadata.getETag() != null) {
+            request.withMatchingETagConstraint(objectMetadata.getETag());
+        }
+        return TransferManager.appendMultipartUserAgent(request);
+    }
+
+    /**
+     * Truncates the file to the completed parts at its beginning, so that the
+     * download can be resumed based on the length of the file.
+     */
+    private void truncateToCompletedParts() {
+        int completedPrefix;
+        synchronized (completedParts) {
+            completedPrefix = completedParts.nextClearBit(0);
+        }
+        long length = Math.min(completedPrefix * partSize, totalBytes);
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            randomAccessFile.setLength(length);
+        } catch (IOException e) {
+            log.warn("Unable to truncate partially downloaded file " + file, e);
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    private void verifyIntegrity() {
+        if (!performIntegrityCheck
+                || ServiceUtils.isMultipartUploadETag(objectMetadata.getETag())
+                || ServiceUtils.skipMd5CheckPerResponse(objectMetadata)) {
+            return;
+        }
+        byte[] clientSideHash = null;
+        byte[] serverSideHash = null;
+        try {
+            clientSideHash = Md5Utils.computeMD5Hash(file);
+            serverSideHash = BinaryUtils.fromHex(objectMetadata.getETag());
+        } catch (Exception e) {
+            log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
+        }
+        if (clientSideHash != null && serverSideHash != null
+                && !Arrays.equals(clientSideHash, serverSideHash)) {
+            throw new AmazonClientException("Unable to verify integrity of data download.  " +
+                    "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
+                    "The data stored in '" + file.getAbsolutePath()
+                    + "' may be corrupt.");
+        }
+    }
+}
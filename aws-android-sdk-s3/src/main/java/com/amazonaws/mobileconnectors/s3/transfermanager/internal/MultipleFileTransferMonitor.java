@@ -18,6 +18,7 @@ package com.amazonaws.mobileconnectors.s3.transfermanager.internal;
 import com.amazonaws.mobileconnectors.s3.transfermanager.Transfer;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -29,6 +30,16 @@ public class MultipleFileTransferMonitor implements TransferMonitor {
     private final AbstractTransfer transfer;
     private final Future<?> future;
 
+    /*
+     * Sub-transfers never leave a done state, so the ones before the cursor
+     * don't need to be checked again. This keeps checking the whole transfer
+     * after every state change of a sub-transfer linear overall.
+     */
+    private Iterator<? extends Transfer> pending;
+    private Transfer firstPending;
+    /* Whether the sub-transfers collection has stopped growing */
+    private boolean allSubTransfersAdded;
+
     public MultipleFileTransferMonitor(AbstractTransfer transfer,
             Collection<? extends AbstractTransfer> subTransfers) {
         this.subTransfers = subTransfers;
@@ -83,11 +94,34 @@ public class MultipleFileTransferMonitor implements TransferMonitor {
         return future;
     }
 
+    /**
+     * Records that all the sub-transfers have been added, so that the
+     * sub-transfers collection can be iterated.
+     */
+    public synchronized void allSubTransfersAdded() {
+        allSubTransfersAdded = true;
+    }
+
+    /**
+     * Returns whether all sub-transfers are done. It returns false until
+     * {@link #allSubTransfersAdded()} has been called, without looking at the
+     * sub-transfers collection while it is still growing.
+     */
     @Override
     public synchronized boolean isDone() {
-        for (Transfer subTransfer : subTransfers) {
-            if (!subTransfer.isDone())
+        if (!allSubTransfersAdded) {
+            return false;
+        }
+        if (pending == null) {
+            pending = subTransfers.iterator();
+        }
+        while (firstPending != null || pending.hasNext()) {
+            if (firstPending == null) {
+                firstPending = pending.next();
+            }
+            if (!firstPending.isDone())
                 return false;
+            firstPending = null;
         }
         return true;
     }
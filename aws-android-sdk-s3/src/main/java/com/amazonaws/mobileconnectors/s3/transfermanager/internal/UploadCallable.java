@@ -15,6 +15,10 @@
 
 package com.amazonaws.mobileconnectors.s3.transfermanager.internal;
 
+import static com.amazonaws.services.s3.internal.Constants.MAXIMUM_UPLOAD_PARTS;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.event.ProgressEvent;
 import com.amazonaws.event.ProgressListenerCallbackExecutor;
 import com.amazonaws.event.ProgressListenerChain;
@@ -23,9 +27,13 @@ import com.amazonaws.mobileconnectors.s3.transfermanager.Transfer.TransferState;
 import com.amazonaws.mobileconnectors.s3.transfermanager.TransferManager;
 import com.amazonaws.mobileconnectors.s3.transfermanager.TransferManagerConfiguration;
 import com.amazonaws.mobileconnectors.s3.transfermanager.TransferProgress;
+import com.amazonaws.mobileconnectors.s3.transfermanager.UploadCheckpoint;
+import com.amazonaws.mobileconnectors.s3.transfermanager.UploadCheckpointStore;
 import com.amazonaws.mobileconnectors.s3.transfermanager.model.UploadResult;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+import com.amazonaws.services.s3.internal.AdaptiveUploadController;
+import com.amazonaws.services.s3.internal.ServiceUtils;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
@@ -44,17 +52,29 @@ import com.amazonaws.services.s3.model.UploadPartRequest;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class UploadCallable implements Callable<UploadResult> {
+    /**
+     * Number of parts uploaded at once when the size of the thread pool is
+     * unknown; matches the default thread pool of TransferManager.
+     */
+    private static final int DEFAULT_MAX_PARTS_IN_FLIGHT = 10;
+
     private final AmazonS3 s3;
     private final ExecutorService threadPool;
     private final PutObjectRequest putObjectRequest;
@@ -73,8 +93,17 @@ public class UploadCallable implements Callable<UploadResult> {
      */
     private final List<PartETag> eTagsToSkip = new ArrayList<PartETag>();
 
+    /** Parts of a parallel upload waiting for room to start, in order. */
+    private final Queue<PartTask> pendingParts = new LinkedList<PartTask>();
+
     private PersistableUpload persistableUpload;
 
+    /** The store to record the progress of the upload in; may be null. */
+    private final UploadCheckpointStore checkpointStore;
+
+    /** The checkpoint of this upload, or null if it isn't checkpointed. */
+    private volatile UploadCheckpoint checkpoint;
+
     public UploadCallable(TransferManager transferManager,
             ExecutorService threadPool, UploadImpl upload,
             PutObjectRequest putObjectRequest,
@@ -89,6 +118,7 @@ public class UploadCallable implements Callable<UploadResult> {
         this.upload = upload;
         this.multipartUploadId = uploadId;
         this.transferProgress = transferProgress;
+        this.checkpointStore = configuration.getUploadCheckpointStore();
     }
 
     List<Future<PartETag>> getFutures() {
@@ -175,6 +205,14 @@ public class UploadCallable implements Callable<UploadResult> {
     private UploadResult uploadInParts() throws Exception {
         boolean isUsingEncryption = s3 instanceof AmazonS3EncryptionClient;
         long optimalPartSize = getOptimalPartSize(isUsingEncryption);
+        boolean isParallelizable = TransferManagerUtils.isUploadParallelizable(
+                putObjectRequest, isUsingEncryption);
+
+        Map<Integer, PartSummary> existingParts = new HashMap<Integer, PartSummary>();
+        if (isParallelizable) {
+            optimalPartSize = resumeFromCheckpoint(optimalPartSize);
+            existingParts = identifyExistingPartsForResume();
+        }
 
         if (multipartUploadId == null) {
             multipartUploadId = initiateMultipartUpload(putObjectRequest,
@@ -184,17 +222,26 @@ public class UploadCallable implements Callable<UploadResult> {
         try {
             UploadPartRequestFactory requestFactory = new UploadPartRequestFactory(
                     putObjectRequest, multipartUploadId, optimalPartSize);
+            AdaptiveUploadController controller = new AdaptiveUploadController(
+                    getMaxPartsInFlight(), optimalPartSize,
+                    configuration.getMinimumUploadPartSize(), listener);
 
-            if (TransferManagerUtils.isUploadParallelizable(putObjectRequest, isUsingEncryption)) {
+            if (isParallelizable) {
+                startCheckpointIfPossible(optimalPartSize);
                 captureUploadStateIfPossible();
-                uploadPartsInParallel(requestFactory, multipartUploadId);
+                uploadPartsInParallel(requestFactory, existingParts, controller);
                 return null;
             } else {
-                return uploadPartsInSeries(requestFactory);
+                return uploadPartsInSeries(requestFactory, controller, isUsingEncryption);
             }
         } catch (Exception e) {
             fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
-            performAbortMultipartUpload();
+            if (checkpoint == null) {
+                performAbortMultipartUpload();
+            } else {
+                log.info("Keeping multipart upload " + multipartUploadId
+                        + " to resume it from its checkpoint");
+            }
             throw e;
         } finally {
             if (putObjectRequest.getInputStream() != null) {
@@ -213,6 +260,7 @@ public class UploadCallable implements Callable<UploadResult> {
      * operation for the given multi-part upload.
      */
     void performAbortMultipartUpload() {
+        deleteCheckpoint();
         try {
             if (multipartUploadId != null)
                 s3.abortMultipartUpload(new AbortMultipartUploadRequest(
@@ -229,29 +277,52 @@ public class UploadCallable implements Callable<UploadResult> {
      * Computes and returns the optimal part size for the upload.
      */
     private long getOptimalPartSize(boolean isUsingEncryption) {
-        long optimalPartSize = TransferManagerUtils.calculateOptimalPartSize(putObjectRequest,
-                configuration);
-        if (isUsingEncryption && optimalPartSize % 32 > 0) {
+        long optimalPartSize = alignPartSize(TransferManagerUtils.calculateOptimalPartSize(
+                putObjectRequest, configuration), isUsingEncryption);
+        log.debug("Calculated optimal part size: " + optimalPartSize);
+        return optimalPartSize;
+    }
+
+    private static long alignPartSize(long partSize, boolean isUsingEncryption) {
+        if (isUsingEncryption && partSize % 32 > 0) {
             // When using encryption, parts must line up correctly along cipher
             // block boundaries
-            optimalPartSize = optimalPartSize - (optimalPartSize % 32) + 32;
+            partSize = partSize - (partSize % 32) + 32;
         }
-        log.debug("Calculated optimal part size: " + optimalPartSize);
-        return optimalPartSize;
+        return partSize;
+    }
+
+    /**
+     * Returns the largest number of parts to upload at once, which is the
+     * number of threads the thread pool can run.
+     */
+    private int getMaxPartsInFlight() {
+        if (threadPool instanceof ThreadPoolExecutor) {
+            return Math.max(((ThreadPoolExecutor) threadPool).getMaximumPoolSize(), 1);
+        }
+        return DEFAULT_MAX_PARTS_IN_FLIGHT;
     }
 
     /**
      * Uploads all parts in the request in serial in this thread, then completes
-     * the upload and returns the result.
+     * the upload and returns the result. Parts are created as they are
+     * uploaded, so their size follows the throughput measured by the
+     * controller.
      */
-    private UploadResult uploadPartsInSeries(UploadPartRequestFactory requestFactory) {
+    private UploadResult uploadPartsInSeries(UploadPartRequestFactory requestFactory,
+            AdaptiveUploadController controller, boolean isUsingEncryption) throws Exception {
 
         final List<PartETag> partETags = new ArrayList<PartETag>();
 
         while (requestFactory.hasMoreRequests()) {
             if (threadPool.isShutdown())
                 throw new CancellationException("TransferManager has been shutdown");
-            UploadPartRequest uploadPartRequest = requestFactory.getNextUploadPartRequest();
+            long partSize = alignPartSize(controller.getPartSize(
+                    requestFactory.getRemainingBytes(),
+                    MAXIMUM_UPLOAD_PARTS - requestFactory.getNextPartNumber() + 1),
+                    isUsingEncryption);
+            UploadPartRequest uploadPartRequest = requestFactory
+                    .getNextUploadPartRequest(partSize);
             // Mark the stream in case we need to reset it
             InputStream inputStream = uploadPartRequest.getInputStream();
             if (inputStream != null && inputStream.markSupported()) {
@@ -261,7 +332,8 @@ public class UploadCallable implements Callable<UploadResult> {
                     inputStream.mark((int) uploadPartRequest.getPartSize());
                 }
             }
-            partETags.add(s3.uploadPart(uploadPartRequest).getPartETag());
+            controller.acquire();
+            partETags.add(new UploadPartCallable(s3, uploadPartRequest, controller).call());
         }
 
         CompleteMultipartUploadResult completeMultipartUploadResult = s3
@@ -278,49 +350,249 @@ public class UploadCallable implements Callable<UploadResult> {
     }
 
     /**
-     * Submits a callable for each part to upload to our thread pool and records
-     * its corresponding Future.
+     * Creates a task for each part to upload and records its corresponding
+     * Future, then starts as many parts as the controller lets through. This
+     * runs in the thread pool the parts are uploaded in, so it must not wait
+     * for room; each part that ends starts the next ones instead.
      */
     private void uploadPartsInParallel(UploadPartRequestFactory requestFactory,
-            String uploadId) {
-
-        Map<Integer, PartSummary> partNumbers = identifyExistingPartsForResume(uploadId);
+            Map<Integer, PartSummary> existingParts, AdaptiveUploadController controller) {
 
         while (requestFactory.hasMoreRequests()) {
             if (threadPool.isShutdown())
                 throw new CancellationException("TransferManager has been shutdown");
             UploadPartRequest request = requestFactory.getNextUploadPartRequest();
-            if (partNumbers.containsKey(request.getPartNumber())) {
-                PartSummary summary = partNumbers.get(request.getPartNumber());
+            PartSummary summary = existingParts.get(request.getPartNumber());
+            if (summary != null && isCheckpointed(summary)) {
                 eTagsToSkip.add(new PartETag(request.getPartNumber(), summary
                         .getETag()));
                 transferProgress.updateProgress(summary.getSize());
                 continue;
             }
-            futures.add(threadPool.submit(new UploadPartCallable(s3, request)));
+            PartTask part = new PartTask(checkpointed(new UploadPartCallable(s3, request,
+                    controller)), controller);
+            futures.add(part);
+            synchronized (pendingParts) {
+                pendingParts.add(part);
+            }
+        }
+        startPendingParts(controller);
+    }
+
+    /**
+     * Submits the pending parts to the thread pool while the controller lets
+     * them through, without waiting for room.
+     */
+    private void startPendingParts(AdaptiveUploadController controller) {
+        synchronized (pendingParts) {
+            while (!pendingParts.isEmpty()) {
+                PartTask part = pendingParts.peek();
+                if (part.isDone()) {
+                    // canceled before it started
+                    pendingParts.remove();
+                    continue;
+                }
+                if (!controller.tryAcquire()) {
+                    return;
+                }
+                pendingParts.remove();
+                try {
+                    threadPool.execute(part);
+                } catch (RejectedExecutionException e) {
+                    controller.partFailed(e);
+                    part.cancel(false);
+                }
+            }
         }
     }
 
-    private Map<Integer, PartSummary> identifyExistingPartsForResume(
-            String uploadId) {
+    /**
+     * A part upload, which starts the pending parts once it has ended and
+     * made room for them.
+     */
+    private final class PartTask extends FutureTask<PartETag> {
+        private final AdaptiveUploadController controller;
+
+        PartTask(Callable<PartETag> callable, AdaptiveUploadController controller) {
+            super(callable);
+            this.controller = controller;
+        }
+
+        @Override
+        protected void done() {
+            startPendingParts(controller);
+        }
+    }
+
+    /**
+     * Lists the parts of the multipart upload being resumed, if any. If the
+     * upload recorded in a checkpoint no longer exists, e.g. because it
+     * expired, the checkpoint is dropped and the upload starts over.
+     */
+    private Map<Integer, PartSummary> identifyExistingPartsForResume() {
         Map<Integer, PartSummary> partNumbers = new HashMap<Integer, PartSummary>();
-        if (uploadId == null) {
+        if (multipartUploadId == null) {
             return partNumbers;
         }
         int partNumber = 0;
 
-        while (true) {
-            PartListing parts = s3.listParts(new ListPartsRequest(
-                    putObjectRequest.getBucketName(),
-                    putObjectRequest.getKey(), uploadId)
-                    .withPartNumberMarker(partNumber));
-            for (PartSummary partSummary : parts.getParts()) {
-                partNumbers.put(partSummary.getPartNumber(), partSummary);
+        try {
+            while (true) {
+                PartListing parts = s3.listParts(new ListPartsRequest(
+                        putObjectRequest.getBucketName(),
+                        putObjectRequest.getKey(), multipartUploadId)
+                        .withPartNumberMarker(partNumber));
+                for (PartSummary partSummary : parts.getParts()) {
+                    partNumbers.put(partSummary.getPartNumber(), partSummary);
+                }
+                if (!parts.isTruncated()) {
+                    return partNumbers;
+                }
+                partNumber = parts.getNextPartNumberMarker();
+            }
+        } catch (AmazonServiceException ase) {
+            if (checkpoint == null || ase.getStatusCode() != 404) {
+                throw ase;
+            }
+            log.info("Multipart upload " + multipartUploadId
+                    + " no longer exists, starting over");
+            deleteCheckpoint();
+            multipartUploadId = null;
+            return new HashMap<Integer, PartSummary>();
+        }
+    }
+
+    /**
+     * Picks up the multipart upload recorded in the checkpoint store for the
+     * file, if the file hasn't changed since, and returns the part size to
+     * use. The part size must stay the same for the parts already uploaded to
+     * line up with the file.
+     */
+    private long resumeFromCheckpoint(long partSize) {
+        if (checkpointStore == null || putObjectRequest.getSSECustomerKey() != null) {
+            return partSize;
+        }
+        File file = TransferManagerUtils.getRequestFile(putObjectRequest);
+        UploadCheckpoint saved;
+        try {
+            saved = checkpointStore.load(putObjectRequest.getBucketName(),
+                    putObjectRequest.getKey(), file.getAbsolutePath());
+        } catch (AmazonClientException e) {
+            log.warn("Unable to load upload checkpoint: " + e.getMessage(), e);
+            return partSize;
+        }
+        if (saved == null) {
+            return partSize;
+        }
+        if (multipartUploadId != null) {
+            // resuming a paused upload; the checkpoint is only of use if it is
+            // of the same multipart upload
+            if (multipartUploadId.equals(saved.getMultipartUploadId())) {
+                checkpoint = saved;
             }
-            if (!parts.isTruncated()) {
-                return partNumbers;
+            return partSize;
+        }
+        if (!saved.isCurrent(file)) {
+            log.info("File " + file + " changed since multipart upload "
+                    + saved.getMultipartUploadId() + " started, starting over");
+            abortQuietly(saved.getMultipartUploadId());
+            deleteQuietly(saved);
+            return partSize;
+        }
+        log.debug("Resuming multipart upload " + saved.getMultipartUploadId()
+                + " from its checkpoint");
+        checkpoint = saved;
+        multipartUploadId = saved.getMultipartUploadId();
+        return saved.getPartSize();
+    }
+
+    /**
+     * Records a checkpoint of a new multipart upload in the checkpoint store,
+     * if there is one.
+     */
+    private void startCheckpointIfPossible(long partSize) {
+        if (checkpointStore == null || checkpoint != null
+                || putObjectRequest.getSSECustomerKey() != null) {
+            return;
+        }
+        File file = TransferManagerUtils.getRequestFile(putObjectRequest);
+        UploadCheckpoint newCheckpoint = new UploadCheckpoint(putObjectRequest.getBucketName(),
+                putObjectRequest.getKey(), file.getAbsolutePath(), file.length(),
+                file.lastModified(), multipartUploadId, partSize);
+        try {
+            checkpointStore.save(newCheckpoint);
+            checkpoint = newCheckpoint;
+        } catch (AmazonClientException e) {
+            log.warn("Unable to save upload checkpoint: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns true if the given part, listed in Amazon S3, can be skipped: the
+     * checkpoint doesn't know of the part, or knows it with the same ETag.
+     */
+    private boolean isCheckpointed(PartSummary summary) {
+        UploadCheckpoint current = checkpoint;
+        if (current == null) {
+            return true;
+        }
+        String eTag = current.getPartETag(summary.getPartNumber());
+        return eTag == null
+                || ServiceUtils.removeQuotes(eTag).equals(
+                        ServiceUtils.removeQuotes(summary.getETag()));
+    }
+
+    /**
+     * Returns a callable which uploads the part and records it in the
+     * checkpoint of the upload, if there is one.
+     */
+    private Callable<PartETag> checkpointed(final UploadPartCallable callable) {
+        final UploadCheckpoint current = checkpoint;
+        if (current == null) {
+            return callable;
+        }
+        return new Callable<PartETag>() {
+            @Override
+            public PartETag call() throws Exception {
+                PartETag partETag = callable.call();
+                current.addPartETag(partETag);
+                try {
+                    checkpointStore.savePart(current, partETag);
+                } catch (AmazonClientException e) {
+                    log.warn("Unable to save upload checkpoint: " + e.getMessage(), e);
+                }
+                return partETag;
             }
-            partNumber = parts.getNextPartNumberMarker();
+        };
+    }
+
+    /**
+     * Deletes the checkpoint of the upload, if there is one. Called once the
+     * upload completed or is aborted.
+     */
+    void deleteCheckpoint() {
+        UploadCheckpoint current = checkpoint;
+        if (current != null) {
+            checkpoint = null;
+            deleteQuietly(current);
+        }
+    }
+
+    private void deleteQuietly(UploadCheckpoint stale) {
+        try {
+            checkpointStore.delete(stale);
+        } catch (AmazonClientException e) {
+            log.warn("Unable to delete upload checkpoint: " + e.getMessage(), e);
+        }
+    }
+
+    private void abortQuietly(String uploadId) {
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    putObjectRequest.getBucketName(), putObjectRequest.getKey(), uploadId));
+        } catch (Exception e) {
+            log.info("Unable to abort multipart upload, you may need to manually remove "
+                    + "uploaded parts: " + e.getMessage(), e);
         }
     }
 
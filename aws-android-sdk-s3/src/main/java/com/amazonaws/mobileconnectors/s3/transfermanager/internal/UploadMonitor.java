@@ -229,6 +229,7 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
                 .completeMultipartUpload(new CompleteMultipartUploadRequest(putObjectRequest
                         .getBucketName(),
                         putObjectRequest.getKey(), uploadId, collectPartETags()));
+        multipartUploadCallable.deleteCheckpoint();
 
         uploadComplete();
 
@@ -16,22 +16,42 @@
 package com.amazonaws.mobileconnectors.s3.transfermanager.internal;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.AdaptiveUploadController;
 import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 
 import java.util.concurrent.Callable;
 
+/**
+ * Uploads a single part. The part must have been let through by
+ * {@link AdaptiveUploadController#acquire()} or
+ * {@link AdaptiveUploadController#tryAcquire()} before the callable is
+ * submitted; the callable reports its outcome back to the controller, but
+ * never waits on it, so a pool thread is only taken by a part that may be
+ * uploaded.
+ */
 public class UploadPartCallable implements Callable<PartETag> {
     private final AmazonS3 s3;
     private final UploadPartRequest request;
+    private final AdaptiveUploadController controller;
 
-    public UploadPartCallable(AmazonS3 s3, UploadPartRequest request) {
+    public UploadPartCallable(AmazonS3 s3, UploadPartRequest request,
+            AdaptiveUploadController controller) {
         this.s3 = s3;
         this.request = request;
+        this.controller = controller;
     }
 
     @Override
     public PartETag call() throws Exception {
-        return s3.uploadPart(request).getPartETag();
+        long startNanos = System.nanoTime();
+        try {
+            PartETag partETag = s3.uploadPart(request).getPartETag();
+            controller.partCompleted(request.getPartSize(), System.nanoTime() - startNanos);
+            return partETag;
+        } catch (Exception e) {
+            controller.partFailed(e);
+            throw e;
+        }
     }
 }
@@ -59,8 +59,32 @@ public class UploadPartRequestFactory {
         return (remainingBytes > 0);
     }
 
+    /**
+     * Returns the number of bytes not covered by any request yet.
+     */
+    public synchronized long getRemainingBytes() {
+        return remainingBytes;
+    }
+
+    /**
+     * Returns the part number of the next request.
+     */
+    public synchronized int getNextPartNumber() {
+        return partNumber;
+    }
+
     public synchronized UploadPartRequest getNextUploadPartRequest() {
-        long partSize = Math.min(optimalPartSize, remainingBytes);
+        return getNextUploadPartRequest(optimalPartSize);
+    }
+
+    /**
+     * Returns the request for the next part, which has the given size unless
+     * fewer bytes remain.
+     *
+     * @param requestedPartSize the size of the part in bytes
+     */
+    public synchronized UploadPartRequest getNextUploadPartRequest(long requestedPartSize) {
+        long partSize = Math.min(requestedPartSize, remainingBytes);
         boolean isLastPart = (remainingBytes - partSize <= 0);
 
         UploadPartRequest request = null;
@@ -255,4 +255,40 @@ class TransferDBBase {
         }
         return mainUploadId;
     }
+
+    /**
+     * Updates several records in one transaction. Each values must hold the
+     * id of the record it updates.
+     *
+     * @param uri The Uri of a table.
+     * @param valuesArray A array of values to update.
+     * @return Number of rows updated.
+     */
+    public synchronized int bulkUpdate(Uri uri, ContentValues[] valuesArray) {
+        int uriType = uriMatcher.match(uri);
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        int rowsUpdated = 0;
+        switch (uriType) {
+            case TRANSFERS:
+                try {
+                    db.beginTransaction();
+                    for (ContentValues values : valuesArray) {
+                        rowsUpdated += db.update(TransferTable.TABLE_TRANSFER, values,
+                                TransferTable.COLUMN_ID + "="
+                                        + values.getAsInteger(TransferTable.COLUMN_ID), null);
+                    }
+                    db.setTransactionSuccessful();
+                } catch (Exception e) {
+                    Log.e(TransferDBBase.class.getSimpleName(),
+                            "bulkUpdate error : " + e.getMessage());
+                    rowsUpdated = 0;
+                } finally {
+                    db.endTransaction();
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown URI: " + uri);
+        }
+        return rowsUpdated;
+    }
 }
@@ -29,6 +29,7 @@ import com.amazonaws.util.json.JsonUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides methods to conveniently perform database operations.
@@ -171,6 +172,26 @@ class TransferDBUtil {
         return transferDBBase.update(getRecordUri(id), values, null, null);
     }
 
+    /**
+     * Updates the current bytes of several transfer records in one
+     * transaction.
+     *
+     * @param bytesById The bytes currently transferred, keyed by the id of the
+     *            transfer
+     * @return Number of rows updated.
+     */
+    public int updateBytesTransferred(Map<Integer, Long> bytesById) {
+        ContentValues[] valuesArray = new ContentValues[bytesById.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Long> entry : bytesById.entrySet()) {
+            ContentValues values = new ContentValues();
+            values.put(TransferTable.COLUMN_ID, entry.getKey());
+            values.put(TransferTable.COLUMN_BYTES_CURRENT, entry.getValue());
+            valuesArray[i++] = values;
+        }
+        return transferDBBase.bulkUpdate(transferDBBase.getContentUri(), valuesArray);
+    }
+
     /**
      * Updates the total bytes of a download record.
      *
@@ -256,6 +277,21 @@ class TransferDBUtil {
         return transferDBBase.update(getRecordUri(id), values, null, null);
     }
 
+    /**
+     * Marks a part of a multipart upload as completed and records its Etag,
+     * in a single update.
+     *
+     * @param id The id of the part record.
+     * @param etag The Etag of the part.
+     * @return Number of rows updated.
+     */
+    public int updatePartCompleted(int id, String etag) {
+        ContentValues values = new ContentValues();
+        values.put(TransferTable.COLUMN_STATE, TransferState.PART_COMPLETED.toString());
+        values.put(TransferTable.COLUMN_ETAG, etag);
+        return transferDBBase.update(getRecordUri(id), values, null, null);
+    }
+
     /**
      * Updates states of all transfer records which are "running" and "waiting"
      * to "network disconnect"
@@ -48,6 +48,12 @@ class TransferStatusUpdater {
      * listeners too often.
      */
     private static final int UPDATE_THRESHOLD_MS = 1000;
+    /**
+     * The interval in milliseconds at which progress is written to the
+     * database. Progress is kept in memory in between, and is also written
+     * whenever the state of a transfer changes.
+     */
+    private static final int PERSIST_INTERVAL_MS = 2000;
 
     /**
      * A map of listeners.
@@ -63,6 +69,17 @@ class TransferStatusUpdater {
      * fired too often.
      */
     private final Map<Integer, Long> lastUpdateTime;
+    /**
+     * The bytes transferred that haven't been written to the database yet,
+     * keyed by the id of the transfer. Writes to the database happen while
+     * holding the lock of this map, so that a batch of progress never
+     * overwrites a newer record written by a state change.
+     */
+    private final Map<Integer, Long> pendingProgress;
+    /**
+     * The time pending progress was last written to the database.
+     */
+    private long lastPersistTime;
     /**
      * Database util to update transfer status.
      */
@@ -80,6 +97,7 @@ class TransferStatusUpdater {
         mainHandler = new Handler(Looper.getMainLooper());
         transfers = new HashMap<Integer, TransferRecord>();
         lastUpdateTime = new HashMap<Integer, Long>();
+        pendingProgress = new HashMap<Integer, Long>();
     }
 
     /**
@@ -119,6 +137,9 @@ class TransferStatusUpdater {
         transfers.remove(id);
         listeners.remove(id);
         lastUpdateTime.remove(id);
+        synchronized (pendingProgress) {
+            pendingProgress.remove(id);
+        }
     }
 
     /**
@@ -148,9 +169,13 @@ class TransferStatusUpdater {
         } else {
             shouldNotNotify |= newState.equals(transfer.state);
             transfer.state = newState;
-            // save to database
-            if (dbUtil.updateTransferRecord(transfer) == 0) {
-                Log.w(TAG, "Failed to update the status of transfer " + id);
+            // save to database, along with any progress not saved yet
+            synchronized (pendingProgress) {
+                pendingProgress.remove(id);
+                if (dbUtil.updateTransferRecord(transfer) == 0) {
+                    Log.w(TAG, "Failed to update the status of transfer " + id);
+                }
+                persistProgress();
             }
         }
 
@@ -185,7 +210,9 @@ class TransferStatusUpdater {
     /**
      * Updates the transfer progress of a transfer. It will trigger
      * {@link TransferListener#onProgressChanged(int, long, long)} of associated
-     * listeners if the update exceeds either time threshold.
+     * listeners if the update exceeds either time threshold. The progress is
+     * written to the database later, together with the progress of other
+     * transfers.
      *
      * @param id id of the transfer
      * @param bytesCurrent current transferred bytes
@@ -196,6 +223,12 @@ class TransferStatusUpdater {
         if (transfer != null) {
             transfer.bytesCurrent = bytesCurrent;
             transfer.bytesTotal = bytesTotal;
+            synchronized (pendingProgress) {
+                pendingProgress.put(id, bytesCurrent);
+                if (System.currentTimeMillis() - lastPersistTime >= PERSIST_INTERVAL_MS) {
+                    persistProgress();
+                }
+            }
         }
 
         // invoke listeners
@@ -224,6 +257,24 @@ class TransferStatusUpdater {
         }
     }
 
+    /**
+     * Writes the pending progress of all transfers to the database in one
+     * transaction. Must be called while holding the lock of pendingProgress.
+     * Only the latest bytes of each transfer are written, and resuming a
+     * transfer doesn't rely on them: uploads count their completed parts and
+     * downloads the length of their file.
+     */
+    private void persistProgress() {
+        lastPersistTime = System.currentTimeMillis();
+        if (pendingProgress.isEmpty()) {
+            return;
+        }
+        if (dbUtil.updateBytesTransferred(pendingProgress) == 0) {
+            Log.w(TAG, "Failed to update the progress of transfers " + pendingProgress.keySet());
+        }
+        pendingProgress.clear();
+    }
+
     /**
      * Throws an error to transfer. It triggers
      * {@link TransferListener#onError(int, Exception)} of associated listeners.
@@ -255,6 +306,9 @@ class TransferStatusUpdater {
         listeners.clear();
         transfers.clear();
         lastUpdateTime.clear();
+        synchronized (pendingProgress) {
+            persistProgress();
+        }
     }
 
     /**
@@ -313,7 +367,10 @@ class TransferStatusUpdater {
         @Override
         public void progressChanged(ProgressEvent progressEvent) {
             // TODO: handle retry of upload where progress could be problematic.
-            if (progressEvent.getBytesTransferred() > 0) {
+            // A reset event reports the bytes read since the last progress
+            // event, which are about to be read again, so they don't count.
+            if (progressEvent.getEventCode() != ProgressEvent.RESET_EVENT_CODE
+                    && progressEvent.getBytesTransferred() > 0) {
                 transfer.bytesCurrent += progressEvent.getBytesTransferred();
                 updateProgress(transfer.id, transfer.bytesCurrent, transfer.bytesTotal);
             }
@@ -28,15 +28,22 @@ class TransferThreadPool {
     private static ExecutorService executorPartTask;
 
     private synchronized static void init() {
-        int processors = Runtime.getRuntime().availableProcessors();
         if (executorMainTask == null) {
-            executorMainTask = buildExecutor(processors + 1);
+            executorMainTask = buildExecutor(getPoolSize());
         }
         if (executorPartTask == null) {
-            executorPartTask = buildExecutor(processors + 1);
+            executorPartTask = buildExecutor(getPoolSize());
         }
     }
 
+    /**
+     * Returns the number of threads of each pool, which is also the largest
+     * number of parts uploaded at once.
+     */
+    static int getPoolSize() {
+        return Runtime.getRuntime().availableProcessors() + 1;
+    }
+
     public static <T> Future<T> submitTask(Callable<T> c) {
         init();
         if (c instanceof UploadPartTask) {
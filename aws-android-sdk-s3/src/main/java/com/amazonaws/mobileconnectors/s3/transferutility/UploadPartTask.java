@@ -19,6 +19,7 @@ import android.util.Log;
 
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.AdaptiveUploadController;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.model.UploadPartResult;
 
@@ -31,24 +32,31 @@ class UploadPartTask implements Callable<Boolean> {
     private final UploadPartRequest request;
     private final AmazonS3 s3;
     private final TransferDBUtil dbUtil;
+    private final AdaptiveUploadController controller;
 
-    public UploadPartTask(UploadPartRequest request, AmazonS3 s3, TransferDBUtil dbUtil) {
+    public UploadPartTask(UploadPartRequest request, AmazonS3 s3, TransferDBUtil dbUtil,
+            AdaptiveUploadController controller) {
         this.request = request;
         this.s3 = s3;
         this.dbUtil = dbUtil;
+        this.controller = controller;
     }
 
     /*
-     * Runs part upload task and returns whether successfully uploaded.
+     * Runs part upload task and returns whether successfully uploaded. The
+     * part was let through by the controller before the task was submitted.
      */
     @Override
     public Boolean call() throws Exception {
+        long startNanos = System.nanoTime();
         try {
             UploadPartResult putPartResult = s3.uploadPart(request);
-            dbUtil.updateState(request.getId(), TransferState.PART_COMPLETED);
-            dbUtil.updateETag(request.getId(), putPartResult.getETag());
+            long elapsedNanos = System.nanoTime() - startNanos;
+            dbUtil.updatePartCompleted(request.getId(), putPartResult.getETag());
+            controller.partCompleted(request.getPartSize(), elapsedNanos);
             return true;
         } catch (Exception e) {
+            controller.partFailed(e);
             dbUtil.updateState(request.getId(), TransferState.FAILED);
             if (RetryUtils.isInterrupted(e)) {
                 // thread interrupted by user
@@ -22,6 +22,7 @@ import com.amazonaws.event.ProgressListener;
 import com.amazonaws.mobileconnectors.s3.transferutility.TransferService.NetworkInfoReceiver;
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.AdaptiveUploadController;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
@@ -124,13 +125,27 @@ class UploadTask implements Callable<Boolean> {
         List<UploadPartRequest> requestList = dbUtil.getNonCompletedPartRequestsFromDB(upload.id,
                 upload.multipartId);
         Log.d(TAG, "multipart upload " + upload.id + " in " + requestList.size() + " parts.");
+        /*
+         * The parts and their sizes are already saved in the database, so only
+         * the number of parts in flight is tuned while the upload runs.
+         */
+        AdaptiveUploadController controller = new AdaptiveUploadController(
+                TransferThreadPool.getPoolSize(), TransferUtility.MINIMUM_UPLOAD_PART_SIZE,
+                TransferUtility.MINIMUM_UPLOAD_PART_SIZE, null);
         ArrayList<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
-        for (UploadPartRequest request : requestList) {
-            TransferUtility.appendMultipartTransferServiceUserAgentString(request);
-            request.setGeneralProgressListener(transferProgress);
-            futures.add(TransferThreadPool.submitTask(new UploadPartTask(request, s3, dbUtil)));
-        }
         try {
+            /*
+             * A part is only submitted once the controller lets it through, so
+             * this thread waits for room instead of the pool threads uploading
+             * the parts.
+             */
+            for (UploadPartRequest request : requestList) {
+                TransferUtility.appendMultipartTransferServiceUserAgentString(request);
+                request.setGeneralProgressListener(transferProgress);
+                controller.acquire();
+                futures.add(TransferThreadPool.submitTask(new UploadPartTask(request, s3,
+                        dbUtil, controller)));
+            }
             boolean isSuccess = true;
             /*
              * Future.get() will block the current thread until the method
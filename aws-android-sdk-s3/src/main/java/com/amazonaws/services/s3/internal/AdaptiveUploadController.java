@@ -0,0 +1,271 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal;
+
+import static com.amazonaws.services.s3.internal.Constants.GB;
+import static com.amazonaws.services.s3.internal.Constants.MB;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.event.ProgressListenerCallbackExecutor;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.s3.model.UploadTuningEvent;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes a multipart upload while it runs, based on how its parts perform.
+ * <ul>
+ * <li>The number of parts in flight grows by one while the throughput of the
+ * upload holds, shrinks by one when it drops, and is halved when Amazon S3
+ * throttles a part or times it out.</li>
+ * <li>The size of parts not created yet follows the throughput of a single
+ * part, so that a part takes about {@link #TARGET_PART_SECONDS} seconds to
+ * upload, within the limits of the service.</li>
+ * </ul>
+ * Each part must be uploaded between {@link #acquire()} or a successful
+ * {@link #tryAcquire()} and either {@link #partCompleted(long, long)} or
+ * {@link #partFailed(Exception)}. Parts are let through before they are
+ * submitted, so that parts waiting for room don't hold the threads of the
+ * pool uploading them. When the submitting task runs in that same pool, it
+ * must not wait in {@link #acquire()} either: it submits the parts that
+ * {@link #tryAcquire()} lets through, and each part that ends submits the
+ * next ones. Every change is published to the listener as an
+ * {@link UploadTuningEvent}.
+ */
+public class AdaptiveUploadController {
+    private static final Log log = LogFactory.getLog(AdaptiveUploadController.class);
+
+    /** The largest part Amazon S3 accepts. */
+    static final long MAXIMUM_PART_SIZE = 5 * GB;
+    /** Part sizes are tuned to take about this long to upload. */
+    static final long TARGET_PART_SECONDS = 30;
+    private static final long TARGET_PART_NANOS = TimeUnit.SECONDS.toNanos(TARGET_PART_SECONDS);
+    /** Weight of the latest part in the measured part throughput. */
+    private static final double SMOOTHING = 0.25;
+    /** Relative throughput drop that makes the controller back off. */
+    private static final double TOLERANCE = 0.1;
+
+    private final int maxPartsInFlight;
+    private final long minimumPartSize;
+    private final ProgressListener listener;
+
+    /* Guarded by this */
+    private int partsInFlightLimit;
+    private int partsInFlight;
+    private long partSize;
+    /* Throughput in bytes per nanosecond of a single part */
+    private double partThroughput;
+    /* Throughput in bytes per nanosecond of the previous window */
+    private double windowThroughput;
+    private long windowStartNanos;
+    private long windowBytes;
+    private int windowParts;
+
+    /**
+     * @param maxPartsInFlight the largest number of parts to upload at once;
+     *            the upload starts with this many
+     * @param partSize the initial part size in bytes
+     * @param minimumPartSize the smallest part size in bytes
+     * @param listener the listener to publish changes to; may be null
+     */
+    public AdaptiveUploadController(int maxPartsInFlight, long partSize, long minimumPartSize,
+            ProgressListener listener) {
+        if (maxPartsInFlight < 1) {
+            throw new IllegalArgumentException("maxPartsInFlight " + maxPartsInFlight
+                    + " must be at least 1");
+        }
+        this.maxPartsInFlight = maxPartsInFlight;
+        this.minimumPartSize = minimumPartSize;
+        this.listener = listener;
+        this.partsInFlightLimit = maxPartsInFlight;
+        this.partSize = Math.max(partSize, minimumPartSize);
+    }
+
+    /**
+     * Blocks until another part may be uploaded. Meant to be called before
+     * the part is submitted for upload.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (partsInFlight >= partsInFlightLimit) {
+            wait();
+        }
+        startPart();
+    }
+
+    /**
+     * Lets another part be uploaded if there is room for it, without waiting.
+     *
+     * @return true if the part may be uploaded, false if the parts in flight
+     *         already reach the limit
+     */
+    public synchronized boolean tryAcquire() {
+        if (partsInFlight >= partsInFlightLimit) {
+            return false;
+        }
+        startPart();
+        return true;
+    }
+
+    /**
+     * Records a part that has been uploaded and lets the next part proceed.
+     *
+     * @param bytes the size of the part
+     * @param elapsedNanos the time it took to upload the part
+     */
+    public void partCompleted(long bytes, long elapsedNanos) {
+        UploadTuningEvent event;
+        synchronized (this) {
+            release();
+            int oldLimit = partsInFlightLimit;
+            long oldPartSize = partSize;
+
+            if (elapsedNanos > 0 && bytes > 0) {
+                double throughput = (double) bytes / elapsedNanos;
+                partThroughput = partThroughput == 0 ? throughput
+                        : SMOOTHING * throughput + (1 - SMOOTHING) * partThroughput;
+                long target = (long) (partThroughput * TARGET_PART_NANOS);
+                // move gradually, and in whole megabytes
+                target = Math.max(partSize / 2, Math.min(partSize * 2, target));
+                partSize = clampPartSize(target - target % MB);
+            }
+
+            windowBytes += bytes;
+            if (++windowParts >= partsInFlightLimit) {
+                long now = System.nanoTime();
+                double throughput = (double) windowBytes / Math.max(1, now - windowStartNanos);
+                if (windowThroughput == 0 || throughput >= windowThroughput * (1 - TOLERANCE)) {
+                    partsInFlightLimit = Math.min(partsInFlightLimit + 1, maxPartsInFlight);
+                } else {
+                    partsInFlightLimit = Math.max(partsInFlightLimit - 1, 1);
+                }
+                windowThroughput = throughput;
+                startWindow(now);
+            }
+            event = changeEvent(oldLimit, oldPartSize);
+        }
+        publish(event);
+    }
+
+    /**
+     * Records a part that failed to upload and lets the next part proceed.
+     *
+     * @param failure the cause of the failure, or null if unknown
+     */
+    public void partFailed(Exception failure) {
+        UploadTuningEvent event;
+        synchronized (this) {
+            release();
+            int oldLimit = partsInFlightLimit;
+            long oldPartSize = partSize;
+            if (isThrottling(failure)) {
+                partsInFlightLimit = Math.max(partsInFlightLimit / 2, 1);
+                startWindow(System.nanoTime());
+            }
+            if (isRequestTimeout(failure)) {
+                partSize = clampPartSize(partSize / 2);
+            }
+            event = changeEvent(oldLimit, oldPartSize);
+        }
+        publish(event);
+    }
+
+    /**
+     * Returns the size for the next part, which is large enough for the
+     * remaining bytes to fit in the remaining part numbers.
+     *
+     * @param remainingBytes the number of bytes not in any part yet
+     * @param remainingParts the number of part numbers left
+     * @return the size of the next part in bytes
+     */
+    public synchronized long getPartSize(long remainingBytes, int remainingParts) {
+        long size = partSize;
+        if (remainingParts > 0) {
+            size = Math.max(size, (remainingBytes + remainingParts - 1) / remainingParts);
+        }
+        return Math.min(size, MAXIMUM_PART_SIZE);
+    }
+
+    /**
+     * Returns the number of parts that may currently be uploaded at once.
+     *
+     * @return the number of parts that may be in flight
+     */
+    public synchronized int getPartsInFlightLimit() {
+        return partsInFlightLimit;
+    }
+
+    private void startPart() {
+        if (partsInFlight == 0 && windowParts == 0) {
+            windowStartNanos = System.nanoTime();
+        }
+        partsInFlight++;
+    }
+
+    private void release() {
+        partsInFlight--;
+        notifyAll();
+    }
+
+    private void startWindow(long now) {
+        windowStartNanos = now;
+        windowBytes = 0;
+        windowParts = 0;
+    }
+
+    private long clampPartSize(long size) {
+        return Math.max(minimumPartSize, Math.min(MAXIMUM_PART_SIZE, size));
+    }
+
+    private UploadTuningEvent changeEvent(int oldLimit, long oldPartSize) {
+        if (oldLimit == partsInFlightLimit && oldPartSize == partSize) {
+            return null;
+        }
+        long throughput = (long) (windowThroughput * TimeUnit.SECONDS.toNanos(1));
+        return new UploadTuningEvent(partsInFlightLimit, partSize, throughput);
+    }
+
+    private void publish(UploadTuningEvent event) {
+        if (event == null) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Tuned multipart upload: " + event);
+        }
+        ProgressListenerCallbackExecutor.progressChanged(listener, event);
+    }
+
+    private static boolean isThrottling(Exception failure) {
+        if (!(failure instanceof AmazonServiceException)) {
+            return false;
+        }
+        AmazonServiceException ase = (AmazonServiceException) failure;
+        return ase.getStatusCode() == 503
+                || "SlowDown".equals(ase.getErrorCode())
+                || RetryUtils.isThrottlingException(ase)
+                || isRequestTimeout(ase);
+    }
+
+    private static boolean isRequestTimeout(Exception failure) {
+        return failure instanceof AmazonServiceException
+                && "RequestTimeout".equals(((AmazonServiceException) failure).getErrorCode());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal;
+
+import com.amazonaws.internal.SdkInputStream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A repeatable input stream over a region of a file, such as a part of a
+ * multipart upload. Data is read with positional reads on a
+ * {@link FileChannel}, so opening the stream doesn't skip through the file,
+ * and marking and resetting only move the read position without reopening the
+ * file or buffering any data.
+ */
+public class FileRegionInputStream extends SdkInputStream {
+    private final FileInputStream fis;
+    private final FileChannel channel;
+    private final long endPosition;
+    private long position;
+    private long markPosition;
+
+    /**
+     * Creates a repeatable input stream over a region of a file.
+     *
+     * @param file The file from which this input stream reads data.
+     * @param offset The offset, in bytes, into the file at which the region
+     *            starts.
+     * @param length The length, in bytes, of the region.
+     * @throws FileNotFoundException If the specified file doesn't exist, or
+     *             can't be opened.
+     */
+    public FileRegionInputStream(File file, long offset, long length)
+            throws FileNotFoundException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid region: offset " + offset
+                    + ", length " + length);
+        }
+        this.fis = new FileInputStream(file);
+        this.channel = fis.getChannel();
+        this.position = offset;
+        this.markPosition = offset;
+        this.endPosition = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int bytesRead = read(b, 0, 1);
+        return bytesRead == -1 ? -1 : (b[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (len == 0) {
+            return 0;
+        }
+        long bytesRemaining = endPosition - position;
+        if (bytesRemaining <= 0) {
+            return -1;
+        }
+        int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, bytesRemaining)),
+                position);
+        if (count > 0) {
+            position += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        abortIfNeeded();
+        long skipped = Math.max(0, Math.min(n, endPosition - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        abortIfNeeded();
+        long bytesRemaining = Math.min(endPosition, channel.size()) - position;
+        return (int) Math.max(0, Math.min(bytesRemaining, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        abortIfNeeded();
+        markPosition = position;
+    }
+
+    /**
+     * Resets the input stream to the last mark point, or the beginning of the
+     * region if there is no mark point.
+     */
+    @Override
+    public void reset() throws IOException {
+        abortIfNeeded();
+        position = markPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fis.close();
+        abortIfNeeded();
+    }
+
+    @Override
+    protected InputStream getWrappedInputStream() {
+        return fis;
+    }
+}
@@ -21,7 +21,9 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
 
 /**
  * @author Hanson Char
@@ -50,6 +52,12 @@ public final class CipherLiteInputStream extends SdkFilterInputStream {
     private boolean eof = false;
     private byte[] bufin;
     private byte[] bufout;
+    /**
+     * Output buffer reused by every update of the cipher, or null if each
+     * update allocates its own output. AES/GCM decryption holds back all
+     * output until the final block, so there is nothing to reuse there.
+     */
+    private byte[] bufupdate;
     private int curr_pos = 0;
     private int max_pos = 0;
 
@@ -76,6 +84,10 @@ public final class CipherLiteInputStream extends SdkFilterInputStream {
                     + DEFAULT_IN_BUFFER_SIZE);
         }
         this.bufin = new byte[buffsize];
+        if (c.getCipherMode() != Cipher.DECRYPT_MODE
+                || !S3CryptoScheme.isAesGcm(c.getCipherAlgorithm())) {
+            this.bufupdate = new byte[c.getOutputSize(buffsize)];
+        }
     }
 
     protected CipherLiteInputStream(InputStream is) {
@@ -237,9 +249,22 @@ public final class CipherLiteInputStream extends SdkFilterInputStream {
             }
             return -1;
         }
-        bufout = cipherLite.update(bufin, 0, len);
         curr_pos = 0;
-        return max_pos = (bufout == null ? 0 : bufout.length);
+        if (bufupdate == null) {
+            bufout = cipherLite.update(bufin, 0, len);
+            return max_pos = (bufout == null ? 0 : bufout.length);
+        }
+        int outputSize = cipherLite.getOutputSize(len);
+        if (bufupdate.length < outputSize) {
+            bufupdate = new byte[outputSize];
+        }
+        try {
+            max_pos = cipherLite.update(bufin, 0, len, bufupdate, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        bufout = bufupdate;
+        return max_pos;
     }
 
 }
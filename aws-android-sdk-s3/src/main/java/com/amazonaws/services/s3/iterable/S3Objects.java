@@ -19,8 +19,11 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.PagePrefetcher;
 
+import java.io.Closeable;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Provides an easy way to iterate Amazon S3 objects in a "foreach" statement.
@@ -34,7 +37,9 @@ import java.util.Iterator;
  * <p>
  * The list of {@link S3ObjectSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
- * {@link S3Objects#withBatchSize(int)} method.
+ * {@link S3Objects#withBatchSize(int)} method. With
+ * {@link S3Objects#withPrefetch(int)}, the next pages are fetched in the
+ * background while the current one is processed.
  */
 public class S3Objects implements Iterable<S3ObjectSummary> {
 
@@ -42,6 +47,8 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
     private String prefix = null;
     private String bucketName;
     private Integer batchSize = null;
+    private int prefetchPages = 0;
+    private ExecutorService prefetchExecutor = null;
 
     private S3Objects(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -86,10 +93,50 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return this;
     }
 
+    /**
+     * Fetches up to the given number of pages ahead in the background, in a
+     * thread of each iterator's own, while the caller processes the current
+     * page. At most that many pages are held in memory besides the current
+     * one.
+     * <p>
+     * Iterators stop fetching pages once they reach the last page or are
+     * garbage collected. To stop an iteration early, close the iterator, which
+     * is {@link Closeable}: it stops fetching further pages, although a
+     * request already sent still runs to completion.
+     *
+     * @param pages How many pages to fetch ahead; 0 disables prefetching.
+     */
+    public S3Objects withPrefetch(int pages) {
+        return withPrefetch(pages, null);
+    }
+
+    /**
+     * Fetches up to the given number of pages ahead in the background, using
+     * the given executor, while the caller processes the current page. Each
+     * iterator occupies one thread of the executor until it is done.
+     *
+     * @param pages How many pages to fetch ahead; 0 disables prefetching.
+     * @param executor The executor to fetch pages in, or null to use a thread
+     *            per iterator.
+     * @see #withPrefetch(int)
+     */
+    public S3Objects withPrefetch(int pages, ExecutorService executor) {
+        if (pages < 0) {
+            throw new IllegalArgumentException("pages " + pages + " must not be negative");
+        }
+        this.prefetchPages = pages;
+        this.prefetchExecutor = executor;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
 
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -102,12 +149,14 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return s3;
     }
 
-    private class S3ObjectIterator implements Iterator<S3ObjectSummary> {
+    private class S3ObjectIterator implements Iterator<S3ObjectSummary>, Closeable {
 
         private ObjectListing currentListing = null;
 
         private Iterator<S3ObjectSummary> currentIterator = null;
 
+        private PagePrefetcher<ObjectListing> prefetcher = null;
+
         @Override
         public boolean hasNext() {
             prepareCurrentListing();
@@ -125,16 +174,28 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
             throw new UnsupportedOperationException();
         }
 
+        /**
+         * Stops fetching pages in the background, if prefetching.
+         */
+        @Override
+        public void close() {
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
+        }
+
         private void prepareCurrentListing() {
             while (currentListing == null
                     || (!currentIterator.hasNext() && currentListing.isTruncated())) {
 
-                if (currentListing == null) {
-                    ListObjectsRequest req = new ListObjectsRequest();
-                    req.setBucketName(getBucketName());
-                    req.setPrefix(getPrefix());
-                    req.setMaxKeys(getBatchSize());
-                    currentListing = getS3().listObjects(req);
+                if (prefetchPages > 0) {
+                    if (prefetcher == null) {
+                        prefetcher = new PagePrefetcher<ObjectListing>(new ObjectPager(),
+                                prefetchPages, prefetchExecutor, this);
+                    }
+                    currentListing = prefetcher.take();
+                } else if (currentListing == null) {
+                    currentListing = getS3().listObjects(newListObjectsRequest());
                 } else {
                     currentListing = getS3().listNextBatchOfObjects(currentListing);
                 }
@@ -145,6 +206,34 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
 
     }
 
+    private ListObjectsRequest newListObjectsRequest() {
+        ListObjectsRequest req = new ListObjectsRequest();
+        req.setBucketName(getBucketName());
+        req.setPrefix(getPrefix());
+        req.setMaxKeys(getBatchSize());
+        return req;
+    }
+
+    /**
+     * Fetches the pages of the listing for a prefetcher.
+     */
+    private class ObjectPager implements PagePrefetcher.Pager<ObjectListing> {
+        @Override
+        public ObjectListing first() {
+            return getS3().listObjects(newListObjectsRequest());
+        }
+
+        @Override
+        public ObjectListing next(ObjectListing previous) {
+            return getS3().listNextBatchOfObjects(previous);
+        }
+
+        @Override
+        public boolean hasNext(ObjectListing listing) {
+            return listing.isTruncated();
+        }
+    }
+
     @Override
     public Iterator<S3ObjectSummary> iterator() {
         return new S3ObjectIterator();
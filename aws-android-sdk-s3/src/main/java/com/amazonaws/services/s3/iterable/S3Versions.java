@@ -19,8 +19,11 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListVersionsRequest;
 import com.amazonaws.services.s3.model.S3VersionSummary;
 import com.amazonaws.services.s3.model.VersionListing;
+import com.amazonaws.util.PagePrefetcher;
 
+import java.io.Closeable;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Provides an easy way to iterate Amazon S3 object versions in a "foreach"
@@ -34,7 +37,9 @@ import java.util.Iterator;
  * <p>
  * The list of {@link S3VersionSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
- * {@link S3Versions#withBatchSize(int)} method.
+ * {@link S3Versions#withBatchSize(int)} method. With
+ * {@link S3Versions#withPrefetch(int)}, the next pages are fetched in the
+ * background while the current one is processed.
  */
 public class S3Versions implements Iterable<S3VersionSummary> {
 
@@ -43,6 +48,8 @@ public class S3Versions implements Iterable<S3VersionSummary> {
     private String prefix;
     private String key;
     private Integer batchSize;
+    private int prefetchPages;
+    private ExecutorService prefetchExecutor;
 
     private S3Versions(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -103,10 +110,50 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return this;
     }
 
+    /**
+     * Fetches up to the given number of pages ahead in the background, in a
+     * thread of each iterator's own, while the caller processes the current
+     * page. At most that many pages are held in memory besides the current
+     * one.
+     * <p>
+     * Iterators stop fetching pages once they reach the last page or are
+     * garbage collected. To stop an iteration early, close the iterator, which
+     * is {@link Closeable}: it stops fetching further pages, although a
+     * request already sent still runs to completion.
+     *
+     * @param pages How many pages to fetch ahead; 0 disables prefetching.
+     */
+    public S3Versions withPrefetch(int pages) {
+        return withPrefetch(pages, null);
+    }
+
+    /**
+     * Fetches up to the given number of pages ahead in the background, using
+     * the given executor, while the caller processes the current page. Each
+     * iterator occupies one thread of the executor until it is done.
+     *
+     * @param pages How many pages to fetch ahead; 0 disables prefetching.
+     * @param executor The executor to fetch pages in, or null to use a thread
+     *            per iterator.
+     * @see #withPrefetch(int)
+     */
+    public S3Versions withPrefetch(int pages, ExecutorService executor) {
+        if (pages < 0) {
+            throw new IllegalArgumentException("pages " + pages + " must not be negative");
+        }
+        this.prefetchPages = pages;
+        this.prefetchExecutor = executor;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
 
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -123,16 +170,22 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return bucketName;
     }
 
-    private class VersionIterator implements Iterator<S3VersionSummary> {
+    private class VersionIterator implements Iterator<S3VersionSummary>, Closeable {
 
         private VersionListing currentListing = null;
         private Iterator<S3VersionSummary> currentIterator = null;
         private S3VersionSummary nextSummary = null;
+        private PagePrefetcher<VersionListing> prefetcher = null;
 
         @Override
         public boolean hasNext() {
             prepareCurrentListing();
-            return nextMatchingSummary() != null;
+            if (nextMatchingSummary() == null) {
+                // the versions of a key may end before the listing does
+                close();
+                return false;
+            }
+            return true;
         }
 
         @Override
@@ -148,6 +201,16 @@ public class S3Versions implements Iterable<S3VersionSummary> {
             throw new UnsupportedOperationException();
         }
 
+        /**
+         * Stops fetching pages in the background, if prefetching.
+         */
+        @Override
+        public void close() {
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
+        }
+
         private S3VersionSummary nextMatchingSummary() {
             if (getKey() == null
                     || (nextSummary != null && nextSummary.getKey().equals(
@@ -159,21 +222,18 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         }
 
         private void prepareCurrentListing() {
+            // no page is needed while a summary is waiting to be returned
             while (currentListing == null
-                    || (!currentIterator.hasNext() && currentListing
+                    || (nextSummary == null && !currentIterator.hasNext() && currentListing
                             .isTruncated())) {
-                if (currentListing == null) {
-                    ListVersionsRequest req = new ListVersionsRequest();
-                    req.setBucketName(getBucketName());
-
-                    if (getKey() != null) {
-                        req.setPrefix(getKey());
-                    } else {
-                        req.setPrefix(getPrefix());
+                if (prefetchPages > 0) {
+                    if (prefetcher == null) {
+                        prefetcher = new PagePrefetcher<VersionListing>(new VersionPager(),
+                                prefetchPages, prefetchExecutor, this);
                     }
-
-                    req.setMaxResults(getBatchSize());
-                    currentListing = getS3().listVersions(req);
+                    currentListing = prefetcher.take();
+                } else if (currentListing == null) {
+                    currentListing = getS3().listVersions(newListVersionsRequest());
                 } else {
                     currentListing = getS3().listNextBatchOfVersions(
                             currentListing);
@@ -189,6 +249,40 @@ public class S3Versions implements Iterable<S3VersionSummary> {
 
     }
 
+    private ListVersionsRequest newListVersionsRequest() {
+        ListVersionsRequest req = new ListVersionsRequest();
+        req.setBucketName(getBucketName());
+
+        if (getKey() != null) {
+            req.setPrefix(getKey());
+        } else {
+            req.setPrefix(getPrefix());
+        }
+
+        req.setMaxResults(getBatchSize());
+        return req;
+    }
+
+    /**
+     * Fetches the pages of the listing for a prefetcher.
+     */
+    private class VersionPager implements PagePrefetcher.Pager<VersionListing> {
+        @Override
+        public VersionListing first() {
+            return getS3().listVersions(newListVersionsRequest());
+        }
+
+        @Override
+        public VersionListing next(VersionListing previous) {
+            return getS3().listNextBatchOfVersions(previous);
+        }
+
+        @Override
+        public boolean hasNext(VersionListing listing) {
+            return listing.isTruncated();
+        }
+    }
+
     @Override
     public Iterator<S3VersionSummary> iterator() {
         return new VersionIterator();
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.model;
+
+import com.amazonaws.event.ProgressEvent;
+
+/**
+ * Progress event published when a multipart upload changes how many parts it
+ * uploads at once, or the size of the parts it has yet to create. The event
+ * code is {@link ProgressEvent#PART_TUNING_EVENT_CODE} and no bytes are
+ * reported as transferred.
+ */
+public class UploadTuningEvent extends ProgressEvent {
+
+    private final int partsInFlightLimit;
+    private final long partSize;
+    private final long throughput;
+
+    /**
+     * @param partsInFlightLimit the number of parts that may be uploaded at
+     *            once
+     * @param partSize the size in bytes of the parts created from now on
+     * @param throughput the measured throughput of the upload in bytes per
+     *            second, or 0 if it hasn't been measured yet
+     */
+    public UploadTuningEvent(int partsInFlightLimit, long partSize, long throughput) {
+        super(PART_TUNING_EVENT_CODE, 0);
+        this.partsInFlightLimit = partsInFlightLimit;
+        this.partSize = partSize;
+        this.throughput = throughput;
+    }
+
+    /**
+     * Returns the number of parts that may be uploaded at once.
+     *
+     * @return the number of parts that may be uploaded at once
+     */
+    public int getPartsInFlightLimit() {
+        return partsInFlightLimit;
+    }
+
+    /**
+     * Returns the size in bytes of the parts created from now on. Parts that
+     * have already been created keep their size.
+     *
+     * @return the size in bytes of new parts
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Returns the measured throughput of the upload in bytes per second.
+     *
+     * @return the throughput in bytes per second, or 0 if it hasn't been
+     *         measured yet
+     */
+    public long getThroughput() {
+        return throughput;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadTuningEvent [partsInFlightLimit=" + partsInFlightLimit + ", partSize="
+                + partSize + ", throughput=" + throughput + "]";
+    }
+}
@@ -21,6 +21,7 @@ package com.amazonaws.services.s3.model.transform;
 import static com.amazonaws.util.StringUtils.UTF8;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.internal.SdkFilterInputStream;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
 import com.amazonaws.services.s3.internal.ObjectExpirationResult;
@@ -87,7 +88,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -181,55 +181,123 @@ public class XmlResponsesSaxParser {
                 log.debug("Sanitizing XML document destined for handler " + handler.getClass());
             }
 
-            InputStream sanitizedInputStream = null;
+            /*
+             * Replace any carriage return (\r) characters with explicit XML
+             * character entities, to prevent the SAX parser from
+             * misinterpreting 0x0D characters as 0x0A and being unable to
+             * parse the XML. This is done on the fly as the parser reads the
+             * document rather than buffering the whole listing in memory.
+             */
+            return new CarriageReturnEscapingInputStream(inputStream);
+        }
+    }
 
-            try {
+    /**
+     * Replaces every carriage return in the wrapped stream with the
+     * <code>&amp;#013;</code> character entity. The byte 0x0D never appears
+     * within a multi-byte UTF-8 sequence, so this can be done on the raw bytes
+     * without decoding the document.
+     */
+    private static final class CarriageReturnEscapingInputStream extends SdkFilterInputStream {
+        private static final byte[] CR_ENTITY = "&#013;".getBytes(UTF8);
+        private static final int BUFFER_SIZE = 8192;
 
-                /*
-                 * Read object listing XML document from input stream provided
-                 * into a string buffer, so we can replace troublesome
-                 * characters before sending the document to the XML parser.
-                 */
-                StringBuilder listingDocBuffer = new StringBuilder();
-                BufferedReader br = new BufferedReader(
-                        new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                        listingDoc.getBytes(UTF8));
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+        private int limit;
+        /* position within CR_ENTITY of the next byte to return */
+        private int entityPos = CR_ENTITY.length;
 
-            } catch (IOException e) {
-                throw e;
-
-            } catch (Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error(
-                                "Unable to close response InputStream after failure sanitizing XML document",
-                                e);
-                    }
+        CarriageReturnEscapingInputStream(InputStream in) {
+            super(in);
+        }
+
+        /**
+         * Refills the buffer if it has been consumed. Returns false at the end
+         * of the stream.
+         */
+        private boolean fill() throws IOException {
+            while (pos == limit) {
+                int read = in.read(buf, 0, buf.length);
+                if (read == -1) {
+                    return false;
                 }
-                throw new AmazonClientException(
-                        "Failed to sanitize XML document destined for handler "
-                                + handler.getClass(), t);
+                pos = 0;
+                limit = read;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            abortIfNeeded();
+            if (entityPos < CR_ENTITY.length) {
+                return CR_ENTITY[entityPos++];
+            }
+            if (!fill()) {
+                return -1;
+            }
+            byte c = buf[pos++];
+            if (c == '\r') {
+                entityPos = 1;
+                return CR_ENTITY[0];
+            }
+            return c & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            abortIfNeeded();
+            if (len == 0) {
+                return 0;
+            }
+            int n = 0;
+            while (n < len) {
+                if (entityPos < CR_ENTITY.length) {
+                    b[off + n++] = CR_ENTITY[entityPos++];
+                    continue;
+                }
+                // don't block for more input once some bytes are available
+                if (pos == limit && (n > 0 && in.available() <= 0 || !fill())) {
+                    break;
+                }
+                byte c = buf[pos++];
+                if (c == '\r') {
+                    b[off + n++] = CR_ENTITY[0];
+                    entityPos = 1;
+                } else {
+                    b[off + n++] = c;
+                }
+            }
+            return n == 0 ? -1 : n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && read() != -1) {
+                skipped++;
             }
-            return sanitizedInputStream;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (limit - pos) + (CR_ENTITY.length - entityPos);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
         }
     }
 
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class FileUploadCheckpointStoreTest {
+
+    private File directory;
+    private FileUploadCheckpointStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("FileUploadCheckpointStoreTest", null);
+        directory.delete();
+        store = new FileUploadCheckpointStore(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        UploadCheckpoint checkpoint = checkpoint("key");
+        checkpoint.addPartETag(new PartETag(1, "etag1"));
+        store.save(checkpoint);
+        PartETag part = new PartETag(3, "etag3");
+        checkpoint.addPartETag(part);
+        store.savePart(checkpoint, part);
+
+        UploadCheckpoint loaded = store.load("bucket", "key", "/tmp/file");
+        assertEquals("upload-id", loaded.getMultipartUploadId());
+        assertEquals(5242880L, loaded.getPartSize());
+        assertEquals(1234L, loaded.getFileLength());
+        assertEquals(5678L, loaded.getFileLastModified());
+        assertEquals("etag1", loaded.getPartETag(1));
+        assertNull(loaded.getPartETag(2));
+        assertEquals("etag3", loaded.getPartETag(3));
+
+        assertNull(store.load("bucket", "other", "/tmp/file"));
+    }
+
+    @Test
+    public void testTornPartIsIgnored() throws IOException {
+        UploadCheckpoint checkpoint = checkpoint("key");
+        store.save(checkpoint);
+        store.savePart(checkpoint, new PartETag(1, "etag1"));
+        File journal = directory.listFiles()[0];
+        FileOutputStream out = new FileOutputStream(journal, true);
+        out.write("{\"partNumber\":2,\"eTag\":\"et".getBytes(StringUtils.UTF8));
+        out.close();
+
+        UploadCheckpoint loaded = store.load("bucket", "key", "/tmp/file");
+        assertEquals(1, loaded.getPartETags().size());
+        assertEquals("etag1", loaded.getPartETag(1));
+    }
+
+    @Test
+    public void testDelete() {
+        UploadCheckpoint checkpoint = checkpoint("key");
+        store.save(checkpoint);
+        store.delete(checkpoint);
+        assertNull(store.load("bucket", "key", "/tmp/file"));
+
+        // a part completing after the delete doesn't bring the checkpoint back
+        store.savePart(checkpoint, new PartETag(1, "etag1"));
+        assertNull(store.load("bucket", "key", "/tmp/file"));
+    }
+
+    private static UploadCheckpoint checkpoint(String key) {
+        return new UploadCheckpoint("bucket", key, "/tmp/file", 1234, 5678, "upload-id",
+                5242880);
+    }
+}
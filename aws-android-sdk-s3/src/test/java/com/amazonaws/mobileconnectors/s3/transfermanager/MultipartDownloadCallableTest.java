@@ -0,0 +1,201 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.mobileconnectors.s3.transfermanager.internal.DownloadImpl;
+import com.amazonaws.mobileconnectors.s3.transfermanager.internal.MultipartDownloadCallable;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MultipartDownloadCallableTest {
+
+    private static final int PART_SIZE = 16;
+
+    private final byte[] content = new byte[PART_SIZE * 6 + 5];
+    private ExecutorService threadPool;
+    private File file;
+    private DownloadImpl download;
+
+    @Before
+    public void setUp() throws IOException {
+        new Random().nextBytes(content);
+        threadPool = Executors.newFixedThreadPool(3);
+        file = File.createTempFile("MultipartDownloadCallableTest", null);
+    }
+
+    @After
+    public void tearDown() {
+        threadPool.shutdownNow();
+        file.delete();
+    }
+
+    @Test
+    public void testDownloadInParts() throws Exception {
+        RangedS3Client s3 = new RangedS3Client(-1);
+        newCallable(s3).call();
+
+        assertArrayEquals(content, readFile());
+        assertEquals(7, s3.requests);
+        // the metadata of the whole object, not of one of the ranges
+        assertEquals(content.length, download.getObjectMetadata().getContentLength());
+        assertEquals("key", download.getKey());
+    }
+
+    @Test
+    public void testFailedPartTruncatesToCompletedParts() throws Exception {
+        RangedS3Client s3 = new RangedS3Client(3);
+        try {
+            newCallable(s3).call();
+            fail("Should throw exception");
+        } catch (AmazonServiceException expected) {
+        }
+
+        byte[] downloaded = readFile();
+        assertTrue(downloaded.length <= 3 * PART_SIZE);
+        assertEquals(0, downloaded.length % PART_SIZE);
+        assertArrayEquals(Arrays.copyOf(content, downloaded.length), downloaded);
+    }
+
+    @Test(timeout = 10000)
+    public void testMoreDownloadsThanPoolThreads() throws Exception {
+        RangedS3Client s3 = new RangedS3Client(-1);
+        List<File> files = new ArrayList<File>();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        final CountDownLatch allSubmitted = new CountDownLatch(1);
+        try {
+            // Each download runs on the pool, like the ones of TransferManager.
+            // They all wait until the pool is full, so that the ranges they
+            // submit are queued behind the downloads that can't start.
+            for (int i = 0; i < 6; i++) {
+                File target = File.createTempFile("MultipartDownloadCallableTest", null);
+                files.add(target);
+                final MultipartDownloadCallable callable = newCallable(s3, target);
+                futures.add(threadPool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        allSubmitted.await();
+                        return callable.call();
+                    }
+                }));
+            }
+            allSubmitted.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            for (File target : files) {
+                assertArrayEquals(content, readFile(target));
+            }
+        } finally {
+            for (File target : files) {
+                target.delete();
+            }
+        }
+    }
+
+    private MultipartDownloadCallable newCallable(RangedS3Client s3) {
+        return newCallable(s3, file);
+    }
+
+    private MultipartDownloadCallable newCallable(RangedS3Client s3, File file) {
+        GetObjectRequest request = new GetObjectRequest("bucket", "key");
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setHeader("ETag", BinaryUtils.toHex(Md5Utils.computeMD5Hash(content)));
+        download = new DownloadImpl("test", new TransferProgress(), null, null,
+                null, request, file);
+        return new MultipartDownloadCallable(s3, threadPool, request, metadata, file,
+                PART_SIZE, download, true);
+    }
+
+    private byte[] readFile() throws IOException {
+        return readFile(file);
+    }
+
+    private byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += in.read(bytes, offset, bytes.length - offset);
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    /**
+     * Serves byte ranges of the content, failing the range of the given part.
+     */
+    private class RangedS3Client extends AmazonS3Client {
+        private final int failingPart;
+        private int requests;
+
+        RangedS3Client(int failingPart) {
+            super(new AnonymousAWSCredentials());
+            this.failingPart = failingPart;
+        }
+
+        @Override
+        public S3Object getObject(GetObjectRequest request) {
+            synchronized (this) {
+                requests++;
+            }
+            long[] range = request.getRange();
+            if (range[0] == failingPart * PART_SIZE) {
+                throw new AmazonServiceException("failing part");
+            }
+            S3Object object = new S3Object();
+            object.getObjectMetadata().setContentLength(range[1] - range[0] + 1);
+            object.getObjectMetadata().setHeader("Content-Range", "bytes " + range[0] + "-"
+                    + range[1] + "/" + content.length);
+            object.setObjectContent(new S3ObjectInputStream(new ByteArrayInputStream(content,
+                    (int) range[0], (int) (range[1] - range[0] + 1)), null));
+            return object;
+        }
+    }
+}
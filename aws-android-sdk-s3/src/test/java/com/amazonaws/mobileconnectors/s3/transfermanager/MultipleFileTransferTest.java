@@ -0,0 +1,345 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.mobileconnectors.s3.transfermanager.Transfer.TransferState;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+public class MultipleFileTransferTest {
+
+    private static final byte[] CONTENT = "data".getBytes(StringUtils.UTF8);
+    private static final int POOL_THREADS = 2;
+
+    private File directory;
+    private StubS3Client s3;
+    private TransferManager transferManager;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("MultipleFileTransferTest", null);
+        directory.delete();
+        directory.mkdirs();
+        s3 = new StubS3Client();
+        transferManager = new TransferManager(s3, Executors.newFixedThreadPool(POOL_THREADS));
+    }
+
+    @After
+    public void tearDown() {
+        transferManager.shutdownNow(false);
+        delete(directory);
+    }
+
+    @Test
+    public void testUploadDirectory() throws Exception {
+        write(new File(directory, "a"));
+        write(new File(directory, "sub/b"));
+        write(new File(directory, "sub/deeper/c"));
+
+        MultipleFileUpload upload = transferManager.uploadDirectory("bucket", "prefix",
+                directory, true);
+        upload.waitForCompletion();
+
+        assertEquals(TransferState.Completed, upload.getState());
+        assertEquals(3, upload.getSubTransfers().size());
+        assertEquals(3 * CONTENT.length, upload.getProgress().getTotalBytesToTransfer());
+        List<String> keys = new ArrayList<String>(s3.uploadedKeys);
+        Collections.sort(keys);
+        assertEquals("[prefix/a, prefix/sub/b, prefix/sub/deeper/c]", keys.toString());
+    }
+
+    @Test
+    public void testUploadDirectoryWithoutSubdirectories() throws Exception {
+        write(new File(directory, "a"));
+        write(new File(directory, "sub/b"));
+
+        MultipleFileUpload upload = transferManager.uploadDirectory("bucket", null,
+                directory, false);
+        upload.waitForCompletion();
+
+        assertEquals(TransferState.Completed, upload.getState());
+        assertEquals("[a]", s3.uploadedKeys.toString());
+    }
+
+    @Test
+    public void testEmptyDirectoryCompletes() throws Exception {
+        new File(directory, "empty").mkdirs();
+
+        MultipleFileUpload upload = transferManager.uploadDirectory("bucket", null,
+                directory, true);
+        upload.waitForCompletion();
+
+        assertEquals(TransferState.Completed, upload.getState());
+        assertTrue(upload.getSubTransfers().isEmpty());
+    }
+
+    @Test
+    public void testDownloadDirectoryStartsDownloadsPerPage() throws Exception {
+        MultipleFileDownload download = transferManager.downloadDirectory("bucket", "dir/",
+                directory);
+        download.waitForCompletion();
+
+        assertEquals(TransferState.Completed, download.getState());
+        assertEquals(3 * CONTENT.length, download.getProgress().getTotalBytesToTransfer());
+        // the first page is downloaded before the second one is listed
+        assertEquals("[list dir/, get dir/1, get dir/2, list next, get dir/3]",
+                s3.calls.toString());
+        assertTrue(new File(directory, "dir/3").isFile());
+    }
+
+    @Test(timeout = 10000)
+    public void testMoreFilesThanPoolThreads() throws Exception {
+        int files = 5 * POOL_THREADS;
+        for (int i = 0; i < files; i++) {
+            write(new File(directory, "up/" + i));
+        }
+        s3.firstPage = keys(files);
+        s3.firstPageTruncated = false;
+
+        MultipleFileUpload upload = transferManager.uploadDirectory("bucket", null,
+                new File(directory, "up"), true);
+        MultipleFileDownload download = transferManager.downloadDirectory("bucket", "dir/",
+                new File(directory, "down"));
+        upload.waitForCompletion();
+        download.waitForCompletion();
+
+        assertEquals(TransferState.Completed, upload.getState());
+        assertEquals(files, s3.uploadedKeys.size());
+        assertEquals(TransferState.Completed, download.getState());
+        assertEquals(files, download.getProgress().getTotalBytesToTransfer() / CONTENT.length);
+        assertTrue(new File(directory, "down/dir/" + (files - 1)).isFile());
+    }
+
+    @Test(timeout = 10000)
+    public void testListingFailureAbortsStartedDownloads() throws Exception {
+        AmazonServiceException failure = new AmazonServiceException("listing failed");
+        s3.firstPage = keys(5 * POOL_THREADS);
+        s3.listingFailure = failure;
+        s3.release = new CountDownLatch(1);
+
+        try {
+            transferManager.downloadDirectory("bucket", "dir/", directory);
+            fail("Expected AmazonServiceException");
+        } catch (AmazonServiceException expected) {
+            assertSame(failure, expected);
+        }
+        s3.release.countDown();
+
+        // the downloads started before the failure were aborted, so only the
+        // later one reaches S3, and it isn't queued behind them
+        Download download = transferManager.download("bucket", "dir/single",
+                new File(directory, "single"));
+        download.waitForCompletion();
+        assertEquals(TransferState.Completed, download.getState());
+        assertEquals("[dir/single]", s3.downloadedKeys.toString());
+    }
+
+    @Test(timeout = 10000)
+    public void testEnumerationFailureAbortsStartedUploads() throws Exception {
+        for (int i = 0; i < 5 * POOL_THREADS; i++) {
+            write(new File(directory, "up/" + i));
+        }
+        final RuntimeException failure = new RuntimeException("metadata failed");
+        s3.release = new CountDownLatch(1);
+
+        try {
+            transferManager.uploadDirectory("bucket", null, new File(directory, "up"), true,
+                    new ObjectMetadataProvider() {
+                        private int files;
+
+                        @Override
+                        public void provideObjectMetadata(File file, ObjectMetadata metadata) {
+                            if (++files > POOL_THREADS + 1) {
+                                throw failure;
+                            }
+                        }
+                    });
+            fail("Expected RuntimeException");
+        } catch (RuntimeException expected) {
+            assertSame(failure, expected);
+        }
+        s3.release.countDown();
+
+        Upload upload = transferManager.upload("bucket", "single", new File(directory, "up/0"));
+        upload.waitForCompletion();
+        assertEquals(TransferState.Completed, upload.getState());
+        assertEquals("[single]", s3.uploadedKeys.toString());
+    }
+
+    private static String[] keys(int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "dir/" + i;
+        }
+        return keys;
+    }
+
+    private static void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(CONTENT);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Records uploaded and downloaded keys, and serves a listing of two pages,
+     * unless the second one fails. Uploads and downloads wait for the release
+     * latch when one is set.
+     */
+    private static class StubS3Client extends AmazonS3Client {
+        private final List<String> uploadedKeys = Collections
+                .synchronizedList(new ArrayList<String>());
+        private final List<String> downloadedKeys = Collections
+                .synchronizedList(new ArrayList<String>());
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        private volatile String[] firstPage = {
+                "dir/1", "dir/2"
+        };
+        private volatile boolean firstPageTruncated = true;
+        private volatile AmazonServiceException listingFailure;
+        private volatile CountDownLatch release;
+
+        StubS3Client() {
+            super(new AnonymousAWSCredentials());
+        }
+
+        @Override
+        public PutObjectResult putObject(PutObjectRequest request) {
+            awaitRelease();
+            uploadedKeys.add(request.getKey());
+            PutObjectResult result = new PutObjectResult();
+            result.setETag(etag());
+            return result;
+        }
+
+        @Override
+        public ObjectListing listObjects(ListObjectsRequest request) {
+            calls.add("list " + request.getPrefix());
+            ObjectListing listing = listing(firstPage);
+            listing.setTruncated(firstPageTruncated);
+            return listing;
+        }
+
+        @Override
+        public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+            calls.add("list next");
+            if (listingFailure != null) {
+                throw listingFailure;
+            }
+            return listing("dir/3");
+        }
+
+        @Override
+        public ObjectMetadata getObjectMetadata(GetObjectMetadataRequest request) {
+            calls.add("get " + request.getKey());
+            return metadata();
+        }
+
+        @Override
+        public S3Object getObject(GetObjectRequest request) {
+            awaitRelease();
+            downloadedKeys.add(request.getKey());
+            S3Object object = new S3Object();
+            object.setKey(request.getKey());
+            object.setObjectMetadata(metadata());
+            object.setObjectContent(new S3ObjectInputStream(new ByteArrayInputStream(CONTENT),
+                    null));
+            return object;
+        }
+
+        private void awaitRelease() {
+            if (release == null) {
+                return;
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException("Aborted", e);
+            }
+        }
+
+        private static ObjectListing listing(String... keys) {
+            ObjectListing listing = new ObjectListing();
+            for (String key : keys) {
+                S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setBucketName("bucket");
+                summary.setKey(key);
+                summary.setSize(CONTENT.length);
+                listing.getObjectSummaries().add(summary);
+            }
+            return listing;
+        }
+
+        private static ObjectMetadata metadata() {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(CONTENT.length);
+            metadata.setHeader("ETag", etag());
+            return metadata;
+        }
+
+        private static String etag() {
+            return BinaryUtils.toHex(Md5Utils.computeMD5Hash(CONTENT));
+        }
+    }
+}
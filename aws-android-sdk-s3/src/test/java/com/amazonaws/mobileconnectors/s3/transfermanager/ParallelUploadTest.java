@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.mobileconnectors.s3.transfermanager.Transfer.TransferState;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelUploadTest {
+
+    private static final int PART_SIZE = 10;
+    private static final int PARTS = 5;
+    private static final int POOL_THREADS = 2;
+
+    private File file;
+    private final StubS3Client s3 = new StubS3Client();
+    private TransferManager transferManager;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("ParallelUploadTest", null);
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[PARTS * PART_SIZE]);
+        out.close();
+
+        transferManager = new TransferManager(s3, Executors.newFixedThreadPool(POOL_THREADS));
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setMinimumUploadPartSize(PART_SIZE);
+        configuration.setMultipartUploadThreshold(PART_SIZE);
+        transferManager.setConfiguration(configuration);
+    }
+
+    @After
+    public void tearDown() {
+        transferManager.shutdownNow(false);
+        file.delete();
+    }
+
+    @Test(timeout = 30000)
+    public void testMoreUploadsThanPoolThreads() throws Exception {
+        // every upload runs in a pool thread while its parts wait for room,
+        // so none of them may wait for its parts in that thread
+        List<Upload> uploads = new ArrayList<Upload>();
+        for (int i = 0; i < 2 * POOL_THREADS; i++) {
+            uploads.add(transferManager.upload("bucket", "key" + i, file));
+        }
+        for (Upload upload : uploads) {
+            upload.waitForCompletion();
+            assertEquals(TransferState.Completed, upload.getState());
+        }
+        assertEquals(2 * POOL_THREADS * PARTS, s3.uploadedParts.get());
+        assertEquals(Collections.nCopies(2 * POOL_THREADS, PARTS), s3.completedPartCounts);
+    }
+
+    /**
+     * Accepts any number of multipart uploads.
+     */
+    private static class StubS3Client extends AmazonS3Client {
+        private final AtomicInteger initiated = new AtomicInteger();
+        private final AtomicInteger uploadedParts = new AtomicInteger();
+        private final List<Integer> completedPartCounts = Collections
+                .synchronizedList(new ArrayList<Integer>());
+
+        StubS3Client() {
+            super(new AnonymousAWSCredentials());
+        }
+
+        @Override
+        public InitiateMultipartUploadResult initiateMultipartUpload(
+                InitiateMultipartUploadRequest request) {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("upload-" + initiated.incrementAndGet());
+            return result;
+        }
+
+        @Override
+        public UploadPartResult uploadPart(UploadPartRequest request) {
+            uploadedParts.incrementAndGet();
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag" + request.getPartNumber());
+            return result;
+        }
+
+        @Override
+        public CompleteMultipartUploadResult completeMultipartUpload(
+                CompleteMultipartUploadRequest request) {
+            completedPartCounts.add(request.getPartETags().size());
+            return new CompleteMultipartUploadResult();
+        }
+    }
+}
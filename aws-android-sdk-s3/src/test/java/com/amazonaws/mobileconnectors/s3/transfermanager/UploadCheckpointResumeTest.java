@@ -0,0 +1,235 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transfermanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class UploadCheckpointResumeTest {
+
+    private static final int PART_SIZE = 10;
+
+    private File file;
+    private final UploadCheckpointStore store = new InMemoryUploadCheckpointStore();
+    private final StubS3Client s3 = new StubS3Client();
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("UploadCheckpointResumeTest", null);
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[5 * PART_SIZE]);
+        out.close();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testFailedUploadResumesFromCheckpoint() throws Exception {
+        s3.failingPart = 3;
+        try {
+            upload();
+            fail("the upload should fail");
+        } catch (AmazonClientException expected) {
+        }
+        UploadCheckpoint checkpoint = store.load("bucket", "key", file.getAbsolutePath());
+        assertEquals("upload-1", checkpoint.getMultipartUploadId());
+        assertEquals(4, checkpoint.getPartETags().size());
+        assertTrue(s3.aborted.isEmpty());
+
+        s3.failingPart = -1;
+        s3.uploadedParts.clear();
+        upload();
+
+        assertEquals(1, s3.initiated);
+        assertEquals("[3]", s3.uploadedParts.toString());
+        assertEquals("[1, 2, 3, 4, 5]", s3.completedParts.toString());
+        assertNull(store.load("bucket", "key", file.getAbsolutePath()));
+    }
+
+    @Test
+    public void testChangedFileStartsOver() throws Exception {
+        s3.failingPart = 3;
+        try {
+            upload();
+            fail("the upload should fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        file.setLastModified(file.lastModified() - 60000);
+        s3.failingPart = -1;
+        s3.uploadedParts.clear();
+        upload();
+
+        assertEquals(2, s3.initiated);
+        assertEquals("[upload-1]", s3.aborted.toString());
+        assertEquals(5, s3.uploadedParts.size());
+    }
+
+    @Test
+    public void testExpiredUploadStartsOver() throws Exception {
+        s3.failingPart = 3;
+        try {
+            upload();
+            fail("the upload should fail");
+        } catch (AmazonClientException expected) {
+        }
+
+        s3.parts.clear();
+        s3.failingPart = -1;
+        s3.uploadedParts.clear();
+        upload();
+
+        assertEquals(2, s3.initiated);
+        assertEquals(5, s3.uploadedParts.size());
+    }
+
+    private void upload() throws InterruptedException {
+        TransferManager transferManager = new TransferManager(s3);
+        TransferManagerConfiguration configuration = new TransferManagerConfiguration();
+        configuration.setMinimumUploadPartSize(PART_SIZE);
+        configuration.setMultipartUploadThreshold(PART_SIZE);
+        configuration.setUploadCheckpointStore(store);
+        transferManager.setConfiguration(configuration);
+        try {
+            transferManager.upload("bucket", "key", file).waitForCompletion();
+        } finally {
+            transferManager.shutdownNow(false);
+        }
+    }
+
+    /**
+     * Keeps the parts of one multipart upload at a time.
+     */
+    private static class StubS3Client extends AmazonS3Client {
+        private volatile int failingPart = -1;
+        private int initiated;
+        private String uploadId;
+        private final Map<Integer, String> parts = Collections
+                .synchronizedMap(new TreeMap<Integer, String>());
+        private final List<Integer> uploadedParts = Collections
+                .synchronizedList(new ArrayList<Integer>());
+        private final List<Integer> completedParts = new ArrayList<Integer>();
+        private final List<String> aborted = new ArrayList<String>();
+
+        StubS3Client() {
+            super(new AnonymousAWSCredentials());
+        }
+
+        @Override
+        public InitiateMultipartUploadResult initiateMultipartUpload(
+                InitiateMultipartUploadRequest request) {
+            uploadId = "upload-" + ++initiated;
+            parts.clear();
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId(uploadId);
+            return result;
+        }
+
+        @Override
+        public UploadPartResult uploadPart(UploadPartRequest request) {
+            if (request.getPartNumber() == failingPart) {
+                AmazonServiceException ase = new AmazonServiceException("InternalError");
+                ase.setStatusCode(500);
+                throw ase;
+            }
+            uploadedParts.add(request.getPartNumber());
+            String eTag = "etag" + request.getPartNumber();
+            parts.put(request.getPartNumber(), eTag);
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag(eTag);
+            return result;
+        }
+
+        @Override
+        public PartListing listParts(ListPartsRequest request) {
+            if (!request.getUploadId().equals(uploadId) || parts.isEmpty()) {
+                AmazonServiceException ase = new AmazonServiceException("NoSuchUpload");
+                ase.setStatusCode(404);
+                ase.setErrorCode("NoSuchUpload");
+                throw ase;
+            }
+            PartListing listing = new PartListing();
+            synchronized (parts) {
+                for (Map.Entry<Integer, String> entry : parts.entrySet()) {
+                    PartSummary summary = new PartSummary();
+                    summary.setPartNumber(entry.getKey());
+                    summary.setETag(entry.getValue());
+                    summary.setSize(PART_SIZE);
+                    listing.getParts().add(summary);
+                }
+            }
+            return listing;
+        }
+
+        @Override
+        public CompleteMultipartUploadResult completeMultipartUpload(
+                CompleteMultipartUploadRequest request) {
+            List<PartETag> partETags = new ArrayList<PartETag>(request.getPartETags());
+            Collections.sort(partETags, new Comparator<PartETag>() {
+                @Override
+                public int compare(PartETag a, PartETag b) {
+                    return a.getPartNumber() - b.getPartNumber();
+                }
+            });
+            for (PartETag partETag : partETags) {
+                completedParts.add(partETag.getPartNumber());
+            }
+            return new CompleteMultipartUploadResult();
+        }
+
+        @Override
+        public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+            aborted.add(request.getUploadId());
+            parts.clear();
+        }
+    }
+}
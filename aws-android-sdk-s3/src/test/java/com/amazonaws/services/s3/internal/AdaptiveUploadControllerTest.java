@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal;
+
+import static com.amazonaws.services.s3.internal.Constants.MB;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.AmazonServiceException;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveUploadControllerTest {
+
+    private static final long PART_SIZE = 5 * MB;
+
+    @Test
+    public void testThrottlingHalvesPartsInFlight() throws InterruptedException {
+        AdaptiveUploadController controller = new AdaptiveUploadController(8, PART_SIZE,
+                PART_SIZE, null);
+        assertEquals(8, controller.getPartsInFlightLimit());
+
+        controller.acquire();
+        controller.partFailed(serviceException(503, "SlowDown"));
+        assertEquals(4, controller.getPartsInFlightLimit());
+
+        controller.acquire();
+        controller.partFailed(serviceException(400, "InvalidPart"));
+        assertEquals(4, controller.getPartsInFlightLimit());
+    }
+
+    @Test
+    public void testTryAcquireRespectsTheLimit() {
+        AdaptiveUploadController controller = new AdaptiveUploadController(2, PART_SIZE,
+                PART_SIZE, null);
+        assertTrue(controller.tryAcquire());
+        assertTrue(controller.tryAcquire());
+        assertFalse(controller.tryAcquire());
+
+        controller.partCompleted(PART_SIZE, TimeUnit.SECONDS.toNanos(1));
+        assertTrue(controller.tryAcquire());
+    }
+
+    @Test
+    public void testPartsInFlightGrowWhileThroughputHolds() throws InterruptedException {
+        AdaptiveUploadController controller = new AdaptiveUploadController(4, PART_SIZE,
+                PART_SIZE, null);
+        controller.acquire();
+        controller.partFailed(serviceException(503, "SlowDown"));
+        controller.acquire();
+        controller.partFailed(serviceException(503, "SlowDown"));
+        assertEquals(1, controller.getPartsInFlightLimit());
+
+        controller.acquire();
+        controller.partCompleted(PART_SIZE, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2, controller.getPartsInFlightLimit());
+    }
+
+    @Test
+    public void testPartSizeFollowsThroughput() throws InterruptedException {
+        AdaptiveUploadController controller = new AdaptiveUploadController(1, PART_SIZE,
+                PART_SIZE, null);
+
+        // a fast part doubles the part size at most
+        controller.acquire();
+        controller.partCompleted(PART_SIZE, TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(2 * PART_SIZE, controller.getPartSize(0, 100));
+
+        // a request timeout halves it again
+        controller.acquire();
+        controller.partFailed(serviceException(400, "RequestTimeout"));
+        assertEquals(PART_SIZE, controller.getPartSize(0, 100));
+
+        // but not below the minimum
+        controller.acquire();
+        controller.partFailed(serviceException(400, "RequestTimeout"));
+        assertEquals(PART_SIZE, controller.getPartSize(0, 100));
+    }
+
+    @Test
+    public void testPartSizeFitsRemainingParts() {
+        AdaptiveUploadController controller = new AdaptiveUploadController(1, PART_SIZE,
+                PART_SIZE, null);
+        assertEquals(10 * MB, controller.getPartSize(100 * MB, 10));
+        assertEquals(10 * MB + 1, controller.getPartSize(100 * MB + 1, 10));
+        assertEquals(AdaptiveUploadController.MAXIMUM_PART_SIZE,
+                controller.getPartSize(100 * AdaptiveUploadController.MAXIMUM_PART_SIZE, 10));
+    }
+
+    @Test
+    public void testAcquireWaitsForPartsInFlight() throws InterruptedException {
+        final AdaptiveUploadController controller = new AdaptiveUploadController(1, PART_SIZE,
+                PART_SIZE, null);
+        controller.acquire();
+
+        Thread waiter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    controller.acquire();
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        waiter.start();
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+
+        controller.partCompleted(PART_SIZE, TimeUnit.SECONDS.toNanos(1));
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+    }
+
+    private static AmazonServiceException serviceException(int statusCode, String errorCode) {
+        AmazonServiceException ase = new AmazonServiceException(errorCode);
+        ase.setStatusCode(statusCode);
+        ase.setErrorCode(errorCode);
+        return ase;
+    }
+}
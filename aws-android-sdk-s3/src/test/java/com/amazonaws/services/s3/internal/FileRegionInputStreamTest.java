@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.util.StringUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+public class FileRegionInputStreamTest {
+
+    private File tmp;
+
+    @Before
+    public void setUp() throws IOException {
+        tmp = File.createTempFile("FileRegionInputStreamTest", null);
+        FileWriter writer = new FileWriter(tmp);
+        writer.write("0123456789abcdefghij");
+        writer.close();
+    }
+
+    @After
+    public void tearDown() {
+        tmp.delete();
+    }
+
+    @Test
+    public void testReadRegion() throws IOException {
+        FileRegionInputStream in = new FileRegionInputStream(tmp, 10, 5);
+        try {
+            assertEquals(5, in.available());
+            byte[] buffer = new byte[10];
+            assertEquals(5, in.read(buffer));
+            assertEquals("abcde", new String(buffer, 0, 5, StringUtils.UTF8));
+            assertEquals(0, in.available());
+            assertEquals(-1, in.read());
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testMarkReset() throws IOException {
+        FileRegionInputStream in = new FileRegionInputStream(tmp, 5, 10);
+        try {
+            byte[] buffer = new byte[3];
+            assertEquals(3, in.read(buffer));
+            assertEquals("567", new String(buffer, StringUtils.UTF8));
+
+            in.mark(1024);
+            assertEquals(3, in.read(buffer));
+            assertEquals("89a", new String(buffer, StringUtils.UTF8));
+            in.reset();
+            assertEquals(3, in.read(buffer));
+            assertEquals("89a", new String(buffer, StringUtils.UTF8));
+
+            assertEquals(4, in.skip(100));
+            assertEquals(-1, in.read(buffer));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testRegionPastEndOfFile() throws IOException {
+        FileRegionInputStream in = new FileRegionInputStream(tmp, 18, 10);
+        try {
+            assertEquals(2, in.available());
+            assertEquals('i', in.read());
+            assertEquals('j', in.read());
+            assertEquals(-1, in.read());
+        } finally {
+            in.close();
+        }
+    }
+}
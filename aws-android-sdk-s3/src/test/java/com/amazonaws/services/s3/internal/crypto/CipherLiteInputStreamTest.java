@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+
+public class CipherLiteInputStreamTest {
+
+    private static final int SIZE = 10000;
+
+    private final Random random = new Random(42);
+    private SecretKey key;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(128);
+        key = generator.generateKey();
+        data = new byte[SIZE];
+        random.nextBytes(data);
+    }
+
+    @Test
+    public void testCbcEncryption() throws Exception {
+        byte[] iv = iv(ContentCryptoScheme.AES_CBC);
+        CipherLite cipherLite = ContentCryptoScheme.AES_CBC.createCipherLite(key, iv,
+                Cipher.ENCRYPT_MODE);
+        assertArrayEquals(doFinal(ContentCryptoScheme.AES_CBC, Cipher.ENCRYPT_MODE, iv, data),
+                readFully(new CipherLiteInputStream(new ByteArrayInputStream(data),
+                        cipherLite, 512)));
+    }
+
+    @Test
+    public void testCbcRoundTrip() throws Exception {
+        byte[] iv = iv(ContentCryptoScheme.AES_CBC);
+        CipherLite encrypt = ContentCryptoScheme.AES_CBC.createCipherLite(key, iv,
+                Cipher.ENCRYPT_MODE);
+        byte[] encrypted = readFully(new CipherLiteInputStream(new ByteArrayInputStream(data),
+                encrypt));
+        CipherLite decrypt = ContentCryptoScheme.AES_CBC.createCipherLite(key, iv,
+                Cipher.DECRYPT_MODE);
+        assertArrayEquals(data, readFully(new CipherLiteInputStream(
+                new ByteArrayInputStream(encrypted), decrypt)));
+    }
+
+    @Test
+    public void testCtrDecryption() throws Exception {
+        byte[] iv = iv(ContentCryptoScheme.AES_CTR);
+        byte[] encrypted = doFinal(ContentCryptoScheme.AES_CTR, Cipher.ENCRYPT_MODE, iv, data);
+        CipherLite cipherLite = ContentCryptoScheme.AES_CTR.createCipherLite(key, iv,
+                Cipher.DECRYPT_MODE);
+        assertArrayEquals(data, readFully(new CipherLiteInputStream(
+                new ByteArrayInputStream(encrypted), cipherLite, 512)));
+    }
+
+    @Test
+    public void testReadsSpanningChunks() throws Exception {
+        byte[] iv = iv(ContentCryptoScheme.AES_CTR);
+        CipherLite cipherLite = ContentCryptoScheme.AES_CTR.createCipherLite(key, iv,
+                Cipher.ENCRYPT_MODE);
+        InputStream in = new CipherLiteInputStream(new ByteArrayInputStream(data), cipherLite,
+                512);
+        byte[] out = new byte[SIZE];
+        int offset = 0;
+        int n;
+        while ((n = in.read(out, offset, Math.min(3000, SIZE - offset))) > 0) {
+            offset += n;
+        }
+        assertArrayEquals(doFinal(ContentCryptoScheme.AES_CTR, Cipher.ENCRYPT_MODE, iv, data),
+                out);
+    }
+
+    private byte[] iv(ContentCryptoScheme scheme) {
+        byte[] iv = new byte[scheme.getIVLengthInBytes()];
+        random.nextBytes(iv);
+        return iv;
+    }
+
+    private byte[] doFinal(ContentCryptoScheme scheme, int mode, byte[] iv, byte[] input)
+            throws Exception {
+        Cipher cipher = Cipher.getInstance(scheme.getCipherAlgorithm());
+        cipher.init(mode, key, new IvParameterSpec(iv));
+        return cipher.doFinal(input);
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[700];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.iterable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.amazonaws.services.s3.model.VersionListing;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ListingPrefetchTest {
+
+    private static final int PAGES = 10;
+    private static final int PAGE_SIZE = 3;
+
+    @Test
+    public void testPrefetchedObjectsInOrder() {
+        StubS3Client s3 = new StubS3Client();
+        List<String> keys = new ArrayList<String>();
+        for (S3ObjectSummary summary : S3Objects.inBucket(s3, "bucket").withPrefetch(2)) {
+            keys.add(summary.getKey());
+        }
+        assertEquals(PAGES * PAGE_SIZE, keys.size());
+        assertEquals("key-0-0", keys.get(0));
+        assertEquals("key-9-2", keys.get(keys.size() - 1));
+        assertEquals(PAGES, s3.requests.get());
+    }
+
+    @Test
+    public void testPrefetchIsBounded() throws Exception {
+        StubS3Client s3 = new StubS3Client();
+        Iterator<S3ObjectSummary> iterator = S3Objects.inBucket(s3, "bucket").withPrefetch(2)
+                .iterator();
+        assertTrue(iterator.hasNext());
+        // the current page, two queued pages, and one waiting for room
+        assertSettlesAt(4, s3.requests);
+        ((Closeable) iterator).close();
+    }
+
+    @Test
+    public void testCloseStopsPrefetching() throws Exception {
+        StubS3Client s3 = new StubS3Client();
+        Iterator<S3ObjectSummary> iterator = S3Objects.inBucket(s3, "bucket").withPrefetch(1)
+                .iterator();
+        iterator.next();
+        ((Closeable) iterator).close();
+        Thread.sleep(300);
+        int requests = s3.requests.get();
+        Thread.sleep(300);
+        assertEquals(requests, s3.requests.get());
+        assertTrue(requests < PAGES);
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("a closed iterator should not fetch more pages");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testFailurePropagates() {
+        StubS3Client s3 = new StubS3Client();
+        s3.failingPage = 3;
+        int count = 0;
+        try {
+            for (S3ObjectSummary summary : S3Objects.inBucket(s3, "bucket").withPrefetch(2)) {
+                count++;
+            }
+            fail("the failure should propagate");
+        } catch (AmazonClientException expected) {
+            assertEquals("page 3", expected.getMessage());
+        }
+        assertEquals(3 * PAGE_SIZE, count);
+    }
+
+    @Test
+    public void testPrefetchedVersionsForKey() {
+        StubS3Client s3 = new StubS3Client();
+        List<String> versions = new ArrayList<String>();
+        Iterator<S3VersionSummary> iterator = S3Versions.forKey(s3, "bucket", "key-0-1")
+                .withPrefetch(2).iterator();
+        while (iterator.hasNext()) {
+            versions.add(iterator.next().getVersionId());
+        }
+        assertEquals("[v0, v1]", versions.toString());
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Waits up to a couple of seconds for the count to reach the expected
+     * value, then a little longer to check that it goes no further.
+     */
+    private static void assertSettlesAt(int expected, AtomicInteger count)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (count.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(expected, count.get());
+    }
+
+    /**
+     * Serves PAGES pages of PAGE_SIZE objects or versions each.
+     */
+    private static class StubS3Client extends AmazonS3Client {
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int failingPage = -1;
+
+        StubS3Client() {
+            super(new AnonymousAWSCredentials());
+        }
+
+        @Override
+        public ObjectListing listObjects(ListObjectsRequest request) {
+            return objectPage(0);
+        }
+
+        @Override
+        public ObjectListing listNextBatchOfObjects(ObjectListing previous) {
+            return objectPage(Integer.parseInt(previous.getNextMarker()));
+        }
+
+        @Override
+        public VersionListing listVersions(ListVersionsRequest request) {
+            return versionPage(0);
+        }
+
+        @Override
+        public VersionListing listNextBatchOfVersions(VersionListing previous) {
+            return versionPage(Integer.parseInt(previous.getNextKeyMarker()));
+        }
+
+        private ObjectListing objectPage(int page) {
+            request(page);
+            ObjectListing listing = new ObjectListing();
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setKey("key-" + page + "-" + i);
+                listing.getObjectSummaries().add(summary);
+            }
+            listing.setTruncated(page < PAGES - 1);
+            listing.setNextMarker(String.valueOf(page + 1));
+            return listing;
+        }
+
+        private VersionListing versionPage(int page) {
+            request(page);
+            VersionListing listing = new VersionListing();
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                S3VersionSummary summary = new S3VersionSummary();
+                summary.setKey("key-" + page + "-" + (i < 2 ? 1 : 2));
+                summary.setVersionId("v" + i);
+                listing.getVersionSummaries().add(summary);
+            }
+            listing.setTruncated(page < PAGES - 1);
+            listing.setNextKeyMarker(String.valueOf(page + 1));
+            return listing;
+        }
+
+        private void request(int page) {
+            requests.incrementAndGet();
+            if (page == failingPage) {
+                throw new AmazonClientException("page " + page);
+            }
+        }
+    }
+}
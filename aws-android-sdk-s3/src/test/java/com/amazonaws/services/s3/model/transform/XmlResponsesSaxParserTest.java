@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.model.transform;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+public class XmlResponsesSaxParserTest {
+
+    private static final String LISTING_PREFIX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+            + "<Name>bucket</Name><Prefix></Prefix><Marker></Marker>"
+            + "<MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>";
+
+    @Test
+    public void testListObjectsWithCarriageReturnInKeys() throws Exception {
+        StringBuilder xml = new StringBuilder(LISTING_PREFIX);
+        String[] keys = new String[] {
+                "a\rb", "\u00e9t\u00e9\r", "plain", "\r\r"
+        };
+        for (String key : keys) {
+            xml.append("<Contents><Key>").append(key).append("</Key>")
+                    .append("<Size>1</Size><StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        xml.append("</ListBucketResult>");
+
+        ObjectListing listing = new XmlResponsesSaxParser()
+                .parseListBucketObjectsResponse(new TrickleInputStream(
+                        xml.toString().getBytes(StringUtils.UTF8)))
+                .getObjectListing();
+
+        assertEquals(keys.length, listing.getObjectSummaries().size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(keys[i], listing.getObjectSummaries().get(i).getKey());
+        }
+    }
+
+    /**
+     * Returns at most a few bytes per read, to exercise the sanitizing
+     * stream's buffer boundaries.
+     */
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+        TrickleInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 3));
+        }
+
+        @Override
+        public synchronized int available() {
+            return 0;
+        }
+    }
+}